@@ -3,15 +3,39 @@ package com.smsfinance;
 import android.app.Application;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.content.pm.ApplicationInfo;
 import android.os.Build;
+import android.util.Log;
+
+import com.smsfinance.database.DatabaseHelper;
+import com.smsfinance.database.IngestionQueue;
+import com.smsfinance.utils.MerchantCategoryCache;
+import com.smsfinance.utils.Metrics;
 
 public class App extends Application {
     public static final String CHANNEL_ID = "sms_finance_channel";
+    private static final String TAG = "App";
 
     @Override
     public void onCreate() {
         super.onCreate();
+        // Pipeline metrics in debuggable builds; release builds pay only a flag check and keep
+        // just the category cache counters
+        Metrics.setEnabled((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
         createNotificationChannel();
+        MerchantCategoryCache.getInstance().attach(DatabaseHelper.getInstance(this));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Once in the background the process may be killed; log if queued rows can't drain.
+        // Nothing waits here: the main thread must not block on the writer
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            IngestionQueue.getInstance(this).flush().whenComplete((rows, error) -> {
+                if (error != null) Log.w(TAG, "Ingestion flush on trim did not complete", error);
+            });
+        }
     }
 
     private void createNotificationChannel() {
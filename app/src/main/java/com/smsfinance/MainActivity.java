@@ -1,6 +1,7 @@
 package com.smsfinance;
 
 import android.Manifest;
+import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Handler;
@@ -13,14 +14,21 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
 
+import com.smsfinance.database.DashboardStats;
+import com.smsfinance.database.DashboardStatsCache;
 import com.smsfinance.database.DatabaseHelper;
-import com.smsfinance.services.SyncWorker;
+import com.smsfinance.services.InboxBackfillWorker;
+import com.smsfinance.services.SyncScheduler;
+import com.smsfinance.utils.Metrics;
+import com.smsfinance.utils.Money;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
     private static final int PERMISSION_REQUEST_CODE = 100;
@@ -36,9 +44,17 @@ public class MainActivity extends AppCompatActivity {
     private TextView totalTransactions;
     private View statusIndicator;
     
-    private Handler refreshHandler;
-    private Runnable refreshRunnable;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private DatabaseHelper db;
+    private DashboardStatsCache statsCache;
+    // Stats queries run here so the UI thread never touches the database
+    private final ExecutorService statsExecutor = Executors.newSingleThreadExecutor();
+    // Refreshes as soon as a new transaction is committed, instead of polling
+    private final DatabaseHelper.ChangeListener changeListener = changes -> {
+        if ((changes & DatabaseHelper.CHANGE_TRANSACTIONS) != 0) {
+            updateStats();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,9 +63,9 @@ public class MainActivity extends AppCompatActivity {
         
         initViews();
         db = DatabaseHelper.getInstance(this);
+        statsCache = DashboardStatsCache.getInstance(this);
         
         checkPermissions();
-        setupAutoRefresh();
     }
 
     private void initViews() {
@@ -68,6 +84,10 @@ public class MainActivity extends AppCompatActivity {
         
         findViewById(R.id.syncButton).setOnClickListener(v -> triggerManualSync());
         findViewById(R.id.refreshButton).setOnClickListener(v -> updateStats());
+        findViewById(R.id.refreshButton).setOnLongClickListener(v -> {
+            exportMetrics();
+            return true;
+        });
     }
 
     private void checkPermissions() {
@@ -83,6 +103,7 @@ public class MainActivity extends AppCompatActivity {
             ActivityCompat.requestPermissions(this, REQUIRED_PERMISSIONS, PERMISSION_REQUEST_CODE);
         } else {
             updateStatus(true);
+            InboxBackfillWorker.enqueue(this);
         }
     }
 
@@ -92,14 +113,21 @@ public class MainActivity extends AppCompatActivity {
         
         if (requestCode == PERMISSION_REQUEST_CODE) {
             boolean smsGranted = false;
+            boolean readSmsGranted = false;
             for (int i = 0; i < permissions.length; i++) {
-                if (permissions[i].equals(Manifest.permission.RECEIVE_SMS) && 
-                    grantResults[i] == PackageManager.PERMISSION_GRANTED) {
+                boolean granted = grantResults[i] == PackageManager.PERMISSION_GRANTED;
+                if (permissions[i].equals(Manifest.permission.RECEIVE_SMS) && granted) {
                     smsGranted = true;
-                    break;
+                } else if (permissions[i].equals(Manifest.permission.READ_SMS) && granted) {
+                    readSmsGranted = true;
                 }
             }
             
+            // Import bank SMS already in the inbox
+            if (readSmsGranted) {
+                InboxBackfillWorker.enqueue(this);
+            }
+            
             if (smsGranted) {
                 updateStatus(true);
                 Toast.makeText(this, "SMS permission granted. App is now active.", Toast.LENGTH_SHORT).show();
@@ -112,7 +140,7 @@ public class MainActivity extends AppCompatActivity {
 
     private void updateStatus(boolean active) {
         if (active) {
-            statusText.setText("● Active - Listening for HDFC SMS");
+            statusText.setText("● Active - Listening for bank SMS");
             statusText.setTextColor(ContextCompat.getColor(this, android.R.color.holo_green_light));
             statusIndicator.setBackgroundColor(ContextCompat.getColor(this, android.R.color.holo_green_dark));
         } else {
@@ -122,51 +150,77 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void setupAutoRefresh() {
-        refreshHandler = new Handler(Looper.getMainLooper());
-        refreshRunnable = new Runnable() {
-            @Override
-            public void run() {
-                updateStats();
-                refreshHandler.postDelayed(this, 30000); // Refresh every 30 seconds
-            }
-        };
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
+        db.addChangeListener(changeListener);
+        // Served from the cache unless something changed while we were away
         updateStats();
-        refreshHandler.postDelayed(refreshRunnable, 30000);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        refreshHandler.removeCallbacks(refreshRunnable);
+        db.removeChangeListener(changeListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        statsExecutor.shutdownNow();
     }
 
     private void updateStats() {
+        if (statsExecutor.isShutdown()) return;
+        statsExecutor.execute(() -> {
+            DashboardStats stats = statsCache.get();
+            mainHandler.post(() -> showStats(stats));
+        });
+    }
+
+    private void showStats(DashboardStats stats) {
+        if (isFinishing() || isDestroyed()) return;
+        
         NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
         
         // Transaction counts
-        todayCount.setText(String.valueOf(db.getTodayCount()));
-        weekCount.setText(String.valueOf(db.getWeekCount()));
-        monthCount.setText(String.valueOf(db.getMonthCount()));
+        todayCount.setText(String.valueOf(stats.getTodayCount()));
+        weekCount.setText(String.valueOf(stats.getWeekCount()));
+        monthCount.setText(String.valueOf(stats.getMonthCount()));
         
         // Spending totals
-        todayTotal.setText(currencyFormat.format(db.getTodayTotal()));
-        weekTotal.setText(currencyFormat.format(db.getWeekTotal()));
-        monthTotal.setText(currencyFormat.format(db.getMonthTotal()));
+        todayTotal.setText(currencyFormat.format(Money.toRupees(stats.getTodayTotalPaise())));
+        weekTotal.setText(currencyFormat.format(Money.toRupees(stats.getWeekTotalPaise())));
+        monthTotal.setText(currencyFormat.format(Money.toRupees(stats.getMonthTotalPaise())));
         
         // Total count
-        totalTransactions.setText("Total: " + db.getTotalTransactionCount() + " transactions tracked");
+        totalTransactions.setText("Total: " + stats.getTotalCount() + " transactions tracked");
+    }
+
+    // Writes the metrics snapshot to files/metrics.json (adb shell run-as com.smsfinance.tracker cat files/metrics.json)
+    private void exportMetrics() {
+        if (!Metrics.isEnabled()) {
+            Toast.makeText(this, "Metrics are disabled in this build", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File file = new File(getFilesDir(), "metrics.json");
+        statsExecutor.execute(() -> {
+            String message;
+            try {
+                Metrics.writeSnapshot(file);
+                message = "Metrics written to " + file.getPath();
+            } catch (IOException e) {
+                message = "Couldn't write metrics: " + e.getMessage();
+            }
+            String result = message;
+            mainHandler.post(() -> Toast.makeText(this, result, Toast.LENGTH_LONG).show());
+        });
     }
 
     private void triggerManualSync() {
         Toast.makeText(this, "Syncing to Google Sheets...", Toast.LENGTH_SHORT).show();
-        
-        OneTimeWorkRequest syncRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-        WorkManager.getInstance(this).enqueue(syncRequest);
+        if (statsExecutor.isShutdown()) return;
+        Context appContext = getApplicationContext();
+        statsExecutor.execute(() -> SyncScheduler.syncNow(appContext));
     }
 }
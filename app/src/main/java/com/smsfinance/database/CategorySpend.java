@@ -0,0 +1,23 @@
+package com.smsfinance.database;
+
+/**
+ * Debits in one category over one calendar month, from the daily category rollup.
+ */
+public final class CategorySpend {
+    // "yyyy-MM", local time
+    private final String month;
+    private final String category;
+    private final long debitPaise;
+
+    public CategorySpend(String month, String category, long debitPaise) {
+        this.month = month;
+        this.category = category;
+        this.debitPaise = debitPaise;
+    }
+
+    public String getMonth() { return month; }
+
+    public String getCategory() { return category; }
+
+    public long getDebitPaise() { return debitPaise; }
+}
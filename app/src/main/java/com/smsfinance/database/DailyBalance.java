@@ -0,0 +1,24 @@
+package com.smsfinance.database;
+
+/**
+ * One day's net movement and the running balance at the end of that day.
+ */
+public final class DailyBalance {
+    // "yyyy-MM-dd", local time
+    private final String day;
+    // Credits minus debits on this day, in paise
+    private final long netPaise;
+    private final long balancePaise;
+
+    public DailyBalance(String day, long netPaise, long balancePaise) {
+        this.day = day;
+        this.netPaise = netPaise;
+        this.balancePaise = balancePaise;
+    }
+
+    public String getDay() { return day; }
+
+    public long getNetPaise() { return netPaise; }
+
+    public long getBalancePaise() { return balancePaise; }
+}
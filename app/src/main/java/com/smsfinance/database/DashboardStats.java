@@ -0,0 +1,40 @@
+package com.smsfinance.database;
+
+/**
+ * Immutable snapshot of the dashboard numbers, computed in a single query.
+ */
+public final class DashboardStats {
+    private final int todayCount;
+    private final int weekCount;
+    private final int monthCount;
+    // Debit totals in paise
+    private final long todayTotalPaise;
+    private final long weekTotalPaise;
+    private final long monthTotalPaise;
+    private final int totalCount;
+
+    public DashboardStats(int todayCount, int weekCount, int monthCount,
+                          long todayTotalPaise, long weekTotalPaise, long monthTotalPaise, int totalCount) {
+        this.todayCount = todayCount;
+        this.weekCount = weekCount;
+        this.monthCount = monthCount;
+        this.todayTotalPaise = todayTotalPaise;
+        this.weekTotalPaise = weekTotalPaise;
+        this.monthTotalPaise = monthTotalPaise;
+        this.totalCount = totalCount;
+    }
+
+    public int getTodayCount() { return todayCount; }
+
+    public int getWeekCount() { return weekCount; }
+
+    public int getMonthCount() { return monthCount; }
+
+    public long getTodayTotalPaise() { return todayTotalPaise; }
+
+    public long getWeekTotalPaise() { return weekTotalPaise; }
+
+    public long getMonthTotalPaise() { return monthTotalPaise; }
+
+    public int getTotalCount() { return totalCount; }
+}
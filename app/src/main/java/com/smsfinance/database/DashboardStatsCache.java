@@ -0,0 +1,68 @@
+package com.smsfinance.database;
+
+import android.content.Context;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last computed DashboardStats, reused until a committed insert changes the ledger or the
+ * local day rolls over (today/week/month are relative to it). Sync progress doesn't
+ * affect the numbers and doesn't invalidate it.
+ */
+public final class DashboardStatsCache {
+    private static DashboardStatsCache instance;
+
+    public static synchronized DashboardStatsCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new DashboardStatsCache(DatabaseHelper.getInstance(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    private final DatabaseHelper db;
+    // Bumped on every ledger change; a result is only reused if computed at the current version
+    private final AtomicLong version = new AtomicLong();
+    private Snapshot snapshot;
+
+    private DashboardStatsCache(DatabaseHelper db) {
+        this.db = db;
+        db.addChangeListener(changes -> {
+            if ((changes & DatabaseHelper.CHANGE_TRANSACTIONS) != 0) {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    // Queries the database only on a miss; call off the main thread
+    public DashboardStats get() {
+        long current = version.get();
+        LocalDate today = LocalDate.now();
+        Snapshot cached;
+        synchronized (this) {
+            cached = snapshot;
+        }
+        if (cached != null && cached.version == current && cached.day.equals(today)) {
+            return cached.stats;
+        }
+
+        // current was read before the query, so a change committed during it still forces a recompute
+        DashboardStats stats = db.getDashboardStats();
+        synchronized (this) {
+            snapshot = new Snapshot(current, today, stats);
+        }
+        return stats;
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final LocalDate day;
+        final DashboardStats stats;
+
+        Snapshot(long version, LocalDate day, DashboardStats stats) {
+            this.version = version;
+            this.day = day;
+            this.stats = stats;
+        }
+    }
+}
@@ -1,33 +1,73 @@
 package com.smsfinance.database;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.smsfinance.utils.DateParser;
+import com.smsfinance.utils.MerchantCategoryStore;
+import com.smsfinance.utils.Metrics;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.smsfinance.database.Schema.*;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+public class DatabaseHelper extends SQLiteOpenHelper implements MerchantCategoryStore {
     private static final String DATABASE_NAME = "sms_finance.db";
-    private static final int DATABASE_VERSION = 1;
-
-    private static final String TABLE_TRANSACTIONS = "transactions";
-    private static final String COL_ID = "id";
-    private static final String COL_AMOUNT = "amount";
-    private static final String COL_TYPE = "type";
-    private static final String COL_MERCHANT = "merchant";
-    private static final String COL_CATEGORY = "category";
-    private static final String COL_REFERENCE = "reference";
-    private static final String COL_TRANSACTION_DATE = "transaction_date";
-    private static final String COL_RAW_SMS = "raw_sms";
-    private static final String COL_SYNCED = "synced";
-    private static final String COL_CREATED_AT = "created_at";
+    private static final int DATABASE_VERSION = 10;
+
+    // Values of COL_SYNCED
+    private static final int SYNC_PENDING = 0;
+    private static final int SYNC_DONE = 1;
+    private static final int SYNC_QUARANTINED = 2;
+    // Handed to the Sheets API without a definite answer yet. Set before the append goes out,
+    // so a lost response or a killed process leaves the row here rather than pending, and the
+    // next run checks the sheet for it before sending it again.
+    private static final int SYNC_UNCONFIRMED = 3;
+
+    // A row the Sheets API keeps rejecting waits 1, 2, 4, ... minutes between tries (capped),
+    // and is set aside after MAX_SYNC_ATTEMPTS so it stops holding up every run
+    private static final long SYNC_BACKOFF_BASE_MS = 60_000;
+    private static final long SYNC_BACKOFF_MAX_MS = 6 * 60 * 60_000;
+    public static final int MAX_SYNC_ATTEMPTS = 6;
+
+    // Rows per batch when backfilling txn_epoch_millis during the v3 migration
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    // Bind arguments per set-based UPDATE; under SQLITE_MAX_VARIABLE_NUMBER on every SQLite Android ships
+    private static final int MAX_BIND_ARGS = 999;
+
+    private static final String MARK_SYNCED_SQL = "UPDATE " + TABLE_TRANSACTIONS + " SET " + COL_SYNCED + " = " + SYNC_DONE +
+            ", " + COL_LAST_ERROR + " = NULL WHERE " + idInList(MAX_BIND_ARGS);
+    // ?1 error, ?2 now, then the id list. Every SET expression sees the pre-update row, so the
+    // delay doubles with each earlier attempt
+    private static final String MARK_SYNC_FAILED_SQL = "UPDATE " + TABLE_TRANSACTIONS + " SET " +
+            COL_SYNC_ATTEMPTS + " = " + COL_SYNC_ATTEMPTS + " + 1, " +
+            COL_LAST_ERROR + " = ?1, " +
+            COL_NEXT_ATTEMPT_AT + " = ?2 + MIN(" + SYNC_BACKOFF_MAX_MS + ", " + SYNC_BACKOFF_BASE_MS +
+            " << MIN(" + COL_SYNC_ATTEMPTS + ", 20)), " +
+            COL_SYNCED + " = CASE WHEN " + COL_SYNC_ATTEMPTS + " + 1 >= " + MAX_SYNC_ATTEMPTS +
+            " THEN " + SYNC_QUARANTINED + " ELSE " + SYNC_PENDING + " END" +
+            " WHERE " + COL_SYNCED + " IN (" + SYNC_PENDING + ", " + SYNC_UNCONFIRMED + ") AND " +
+            idInList(MAX_BIND_ARGS - 2);
+    // ?1 new state, ?2 expected current state, then the id list
+    private static final String MOVE_SYNC_STATE_SQL = "UPDATE " + TABLE_TRANSACTIONS + " SET " + COL_SYNCED +
+            " = ?1 WHERE " + COL_SYNCED + " = ?2 AND " + idInList(MAX_BIND_ARGS - 2);
+
+    // Bits passed to ChangeListener
+    public static final int CHANGE_TRANSACTIONS = 1;
+    public static final int CHANGE_SYNC_STATE = 2;
 
     private static DatabaseHelper instance;
 
@@ -38,57 +78,468 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return instance;
     }
 
+    // Compiled on first use and reused; bindings are per-statement state, so each is used
+    // under its own monitor, always after the enclosing transaction has begun
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement insertBodyStatement;
+    private SQLiteStatement learnCategoryStatement;
+    private SQLiteStatement markSyncedStatement;
+    private SQLiteStatement markSyncFailedStatement;
+    private SQLiteStatement moveSyncStateStatement;
+
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Set when an upgrade freed a lot of pages; VACUUM can't run inside the upgrade transaction
+    private boolean vacuumOnOpen;
+
     private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers (dashboard) and the writer (ingestion, sync) no longer block each other
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Notified after a write that changed rows has committed, so readers can cache what they
+     * derive from the database instead of polling it. Called on the writing thread.
+     */
+    public interface ChangeListener {
+        void onDatabaseChanged(int changes);
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyChanged(int changes) {
+        for (ChangeListener listener : changeListeners) {
+            listener.onDatabaseChanged(changes);
+        }
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        String createTable = "CREATE TABLE " + TABLE_TRANSACTIONS + " (" +
-                COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                COL_AMOUNT + " REAL NOT NULL, " +
-                COL_TYPE + " TEXT NOT NULL, " +
-                COL_MERCHANT + " TEXT, " +
-                COL_CATEGORY + " TEXT, " +
-                COL_REFERENCE + " TEXT, " +
-                COL_TRANSACTION_DATE + " TEXT, " +
-                COL_RAW_SMS + " TEXT, " +
-                COL_SYNCED + " INTEGER DEFAULT 0, " +
-                COL_CREATED_AT + " TEXT DEFAULT CURRENT_TIMESTAMP)";
-        db.execSQL(createTable);
-
-        // Index for faster queries
-        db.execSQL("CREATE INDEX idx_transaction_date ON " + TABLE_TRANSACTIONS + "(" + COL_TRANSACTION_DATE + ")");
-        db.execSQL("CREATE INDEX idx_synced ON " + TABLE_TRANSACTIONS + "(" + COL_SYNCED + ")");
+        for (String statement : CREATE_STATEMENTS) {
+            db.execSQL(statement);
+        }
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TRANSACTIONS);
-        onCreate(db);
+        // Each step runs inside the upgrade transaction opened by SQLiteOpenHelper,
+        // so a failed upgrade rolls back to the old schema with no data lost
+        boolean rebuildSummaries = false;
+
+        if (oldVersion < 2) {
+            createSummaryTables(db);
+            rebuildSummaries = true;
+        }
+        if (oldVersion < 3) {
+            migrateToTxnEpoch(db);
+            rebuildSummaries = true;
+        }
+        if (oldVersion < 4) {
+            createMerchantCategoryTable(db);
+        }
+        if (oldVersion < 5) {
+            migrateToFingerprints(db);
+            rebuildSummaries = true;
+        }
+        if (oldVersion < 6) {
+            moveRawSmsToSideTable(db);
+        }
+        if (oldVersion < 7) {
+            addSyncRetryColumns(db);
+        }
+        if (oldVersion < 8) {
+            migrateToPaise(db);
+            rebuildSummaries = true;
+        }
+        if (oldVersion < 9) {
+            migrateToLedgerState(db);
+            rebuildSummaries = true;
+        }
+        if (oldVersion < 10) {
+            // v10: category rollups follow recategorized rows. Nothing could recategorize
+            // before, so the existing rollups are already right
+            db.execSQL(CREATE_SUMMARY_CATEGORY_UPDATE_TRIGGER);
+        }
+
+        if (rebuildSummaries) {
+            // Triggers reference the latest schema, so recreate them after all steps
+            db.execSQL("DROP TRIGGER IF EXISTS trg_summary_insert");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_summary_delete");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_summary_category_update");
+            createSummaryTriggers(db);
+            rebuildSummaries(db);
+        }
+    }
+
+    // v3: normalized, indexed transaction timestamp replacing LIKE filters on created_at
+    private void migrateToTxnEpoch(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " +
+                COL_TXN_EPOCH_MILLIS + " INTEGER NOT NULL DEFAULT 0");
+
+        // Page through by id so memory stays flat however large the history is
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TRANSACTIONS +
+                " SET " + COL_TXN_EPOCH_MILLIS + " = ? WHERE " + COL_ID + " = ?");
+        try {
+            long lastId = 0;
+            while (true) {
+                Cursor cursor = db.rawQuery(
+                    "SELECT " + COL_ID + ", " + COL_TRANSACTION_DATE + ", " +
+                    "CAST(strftime('%s', " + COL_CREATED_AT + ") AS INTEGER) * 1000" +
+                    " FROM " + TABLE_TRANSACTIONS + " WHERE " + COL_ID + " > ?" +
+                    " ORDER BY " + COL_ID + " LIMIT " + MIGRATION_BATCH_SIZE,
+                    new String[]{String.valueOf(lastId)}
+                );
+                int rows = 0;
+                try {
+                    while (cursor.moveToNext()) {
+                        lastId = cursor.getLong(0);
+                        long epochMillis = DateParser.toEpochMillis(cursor.getString(1));
+                        update.bindLong(1, epochMillis >= 0 ? epochMillis : cursor.getLong(2));
+                        update.bindLong(2, lastId);
+                        update.executeUpdateDelete();
+                        rows++;
+                    }
+                } finally {
+                    cursor.close();
+                }
+                if (rows < MIGRATION_BATCH_SIZE) break;
+            }
+        } finally {
+            update.close();
+        }
+
+        // The old index was on unparsed date strings and couldn't serve range queries
+        db.execSQL("DROP INDEX IF EXISTS idx_transaction_date");
+        db.execSQL("CREATE INDEX idx_txn_epoch ON " + TABLE_TRANSACTIONS + "(" + COL_TXN_EPOCH_MILLIS + ")");
+    }
+
+    // v5: fingerprint column with a UNIQUE index; existing duplicates are collapsed first
+    private void migrateToFingerprints(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " + COL_FINGERPRINT + " TEXT");
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TRANSACTIONS +
+                " SET " + COL_FINGERPRINT + " = ? WHERE " + COL_ID + " = ?");
+        try {
+            long lastId = 0;
+            while (true) {
+                Cursor cursor = db.rawQuery(
+                    "SELECT " + COL_ID + ", " + COL_TYPE + ", " + COL_AMOUNT + ", " + COL_REFERENCE + ", " +
+                    COL_TRANSACTION_DATE + ", " + COL_RAW_SMS +
+                    " FROM " + TABLE_TRANSACTIONS + " WHERE " + COL_ID + " > ?" +
+                    " ORDER BY " + COL_ID + " LIMIT " + MIGRATION_BATCH_SIZE,
+                    new String[]{String.valueOf(lastId)}
+                );
+                int rows = 0;
+                try {
+                    while (cursor.moveToNext()) {
+                        lastId = cursor.getLong(0);
+                        // Still the REAL rupee column here; the fingerprint has always used paise
+                        update.bindString(1, TransactionFingerprint.of(cursor.getString(1),
+                                Math.round(cursor.getDouble(2) * 100),
+                                cursor.getString(3), cursor.getString(4), cursor.getString(5)));
+                        update.bindLong(2, lastId);
+                        update.executeUpdateDelete();
+                        rows++;
+                    }
+                } finally {
+                    cursor.close();
+                }
+                if (rows < MIGRATION_BATCH_SIZE) break;
+            }
+        } finally {
+            update.close();
+        }
+
+        // Keep the oldest row of each duplicate group, synced if any copy was
+        db.execSQL("UPDATE " + TABLE_TRANSACTIONS + " SET " + COL_SYNCED + " = 1 WHERE " + COL_SYNCED + " = 0 AND " +
+                COL_FINGERPRINT + " IN (SELECT " + COL_FINGERPRINT + " FROM " + TABLE_TRANSACTIONS +
+                " WHERE " + COL_SYNCED + " = 1)");
+        db.execSQL("DELETE FROM " + TABLE_TRANSACTIONS + " WHERE " + COL_ID + " NOT IN (SELECT MIN(" + COL_ID + ") FROM " +
+                TABLE_TRANSACTIONS + " GROUP BY " + COL_FINGERPRINT + ")");
+
+        db.execSQL("CREATE UNIQUE INDEX idx_fingerprint ON " + TABLE_TRANSACTIONS + "(" + COL_FINGERPRINT + ")");
+    }
+
+    // v7: per-row backoff instead of retrying the whole unsynced set every run
+    private void addSyncRetryColumns(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " + COL_SYNC_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " + COL_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " + COL_LAST_ERROR + " TEXT");
+    }
+
+    // v8: amounts as exact INTEGER paise instead of REAL rupees; the rollups are recreated
+    // with paise columns and rebuilt from the converted ledger at the end of the upgrade
+    private void migrateToPaise(SQLiteDatabase db) {
+        // The triggers reference the old column, which would block dropping it
+        db.execSQL("DROP TRIGGER IF EXISTS trg_summary_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS trg_summary_delete");
+
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN " + COL_AMOUNT_PAISE + " INTEGER NOT NULL DEFAULT 0");
+        // Stored values were parsed from text with at most two decimals, so rounding recovers them exactly
+        db.execSQL("UPDATE " + TABLE_TRANSACTIONS + " SET " + COL_AMOUNT_PAISE +
+                " = CAST(ROUND(" + COL_AMOUNT + " * 100) AS INTEGER)");
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " DROP COLUMN " + COL_AMOUNT);
+
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DAILY_SUMMARY);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DAILY_CATEGORY_SUMMARY);
+        createSummaryTables(db);
+    }
+
+    // v9: rollups become WITHOUT ROWID tables clustered on their keys, so range reads over them
+    // are covering; adds ledger_state and the merchant index. The rebuild fills all three.
+    private void migrateToLedgerState(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DAILY_SUMMARY);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DAILY_CATEGORY_SUMMARY);
+        createSummaryTables(db);
+        createLedgerStateTable(db);
+        createMerchantSpendIndex(db);
     }
 
+    private void createMerchantSpendIndex(SQLiteDatabase db) {
+        db.execSQL(CREATE_MERCHANT_SPEND_INDEX);
+    }
+
+    private void createLedgerStateTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_LEDGER_STATE);
+        db.execSQL(INIT_LEDGER_STATE);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (vacuumOnOpen) {
+            vacuumOnOpen = false;
+            db.execSQL("VACUUM");
+        }
+    }
+
+    private void createSmsBodyTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_SMS_BODY);
+        db.execSQL(CREATE_SMS_BODY_DELETE_TRIGGER);
+    }
+
+    // v6: bodies move out of transactions into sms_body, compressed, so scans over
+    // transactions stop paging them in
+    private void moveRawSmsToSideTable(SQLiteDatabase db) {
+        createSmsBodyTable(db);
+
+        SQLiteStatement insert = db.compileStatement(INSERT_BODY_SQL);
+        try {
+            long lastId = 0;
+            while (true) {
+                Cursor cursor = db.rawQuery(
+                    "SELECT " + COL_ID + ", " + COL_RAW_SMS + " FROM " + TABLE_TRANSACTIONS +
+                    " WHERE " + COL_ID + " > ? AND " + COL_RAW_SMS + " IS NOT NULL" +
+                    " ORDER BY " + COL_ID + " LIMIT " + MIGRATION_BATCH_SIZE,
+                    new String[]{String.valueOf(lastId)}
+                );
+                int rows = 0;
+                try {
+                    while (cursor.moveToNext()) {
+                        lastId = cursor.getLong(0);
+                        insert.bindLong(1, lastId);
+                        insert.bindBlob(2, SmsBodyCodec.encode(cursor.getString(1)));
+                        insert.executeInsert();
+                        rows++;
+                    }
+                } finally {
+                    cursor.close();
+                }
+                if (rows < MIGRATION_BATCH_SIZE) break;
+            }
+        } finally {
+            insert.close();
+        }
+
+        // SQLite 3.35+, which every API 34 device has
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " DROP COLUMN " + COL_RAW_SMS);
+        vacuumOnOpen = true;
+    }
+
+    private void createMerchantCategoryTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_MERCHANT_CATEGORY);
+    }
+
+    private void createSummaryTables(SQLiteDatabase db) {
+        db.execSQL(CREATE_DAILY_SUMMARY);
+        db.execSQL(CREATE_DAILY_CATEGORY_SUMMARY);
+    }
+
+    private void createSummaryTriggers(SQLiteDatabase db) {
+        db.execSQL(CREATE_SUMMARY_INSERT_TRIGGER);
+        db.execSQL(CREATE_SUMMARY_DELETE_TRIGGER);
+        db.execSQL(CREATE_SUMMARY_CATEGORY_UPDATE_TRIGGER);
+    }
+
+    // Recomputes the rollups and ledger_state from the ledger; used by migrations
+    private void rebuildSummaries(SQLiteDatabase db) {
+        String day = String.format(ROW_DAY, TABLE_TRANSACTIONS);
+        String debit = "SUM(CASE WHEN " + COL_TYPE + " = 'debit' THEN " + COL_AMOUNT_PAISE + " ELSE 0 END)";
+        String credit = "SUM(CASE WHEN " + COL_TYPE + " = 'credit' THEN " + COL_AMOUNT_PAISE + " ELSE 0 END)";
+
+        db.execSQL("DELETE FROM " + TABLE_DAILY_SUMMARY);
+        db.execSQL("INSERT INTO " + TABLE_DAILY_SUMMARY + " (" +
+                COL_DAY + ", " + COL_COUNT + ", " + COL_DEBIT_PAISE + ", " + COL_CREDIT_PAISE + ") " +
+                "SELECT " + day + ", COUNT(*), " + debit + ", " + credit +
+                " FROM " + TABLE_TRANSACTIONS + " GROUP BY 1");
+
+        db.execSQL("DELETE FROM " + TABLE_DAILY_CATEGORY_SUMMARY);
+        db.execSQL("INSERT INTO " + TABLE_DAILY_CATEGORY_SUMMARY + " (" +
+                COL_DAY + ", " + COL_CATEGORY + ", " + COL_COUNT + ", " + COL_DEBIT_PAISE + ", " + COL_CREDIT_PAISE + ") " +
+                "SELECT " + day + ", COALESCE(" + COL_CATEGORY + ", 'Other'), COUNT(*), " + debit + ", " + credit +
+                " FROM " + TABLE_TRANSACTIONS + " GROUP BY 1, 2");
+
+        db.execSQL("UPDATE " + TABLE_LEDGER_STATE + " SET " +
+                COL_TXN_COUNT + " = (SELECT COALESCE(SUM(" + COL_COUNT + "), 0) FROM " + TABLE_DAILY_SUMMARY + "), " +
+                COL_BALANCE_PAISE + " = (SELECT COALESCE(SUM(" + COL_CREDIT_PAISE + " - " + COL_DEBIT_PAISE + "), 0) FROM " +
+                TABLE_DAILY_SUMMARY + ") WHERE " + COL_ID + " = 1");
+    }
+
+    // Returns the new row id, or -1 if a transaction with the same fingerprint already exists
     public long insertTransaction(Transaction transaction) {
+        return insertTransactions(Collections.singletonList(transaction)) > 0 ? transaction.getId() : -1;
+    }
+
+    public int insertTransactions(List<Transaction> transactions) {
+        return insertTransactions(transactions, Collections.emptyMap());
+    }
+
+    // Bulk insert through the cached prepared statement inside a single transaction; duplicates
+    // are skipped (a single probe of idx_fingerprint) and not counted. Learned merchant
+    // categories are stored in the same transaction, so they don't cost a commit each.
+    public int insertTransactions(List<Transaction> transactions, Map<String, String> learnedCategories) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_AMOUNT, transaction.getAmount());
-        values.put(COL_TYPE, transaction.getType());
-        values.put(COL_MERCHANT, transaction.getMerchant());
-        values.put(COL_CATEGORY, transaction.getCategory());
-        values.put(COL_REFERENCE, transaction.getReference());
-        values.put(COL_TRANSACTION_DATE, transaction.getTransactionDate());
-        values.put(COL_RAW_SMS, transaction.getRawSms());
-        values.put(COL_SYNCED, transaction.isSynced() ? 1 : 0);
-        
-        return db.insert(TABLE_TRANSACTIONS, null, values);
-    }
-
-    public List<Transaction> getUnsyncedTransactions() {
+        long start = Metrics.start();
+
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = insertStatement(db);
+            SQLiteStatement insertBody = insertBodyStatement(db);
+            synchronized (insert) {
+                for (Transaction transaction : transactions) {
+                    insert.bindLong(1, transaction.getAmountPaise());
+                    insert.bindString(2, transaction.getType());
+                    bindNullable(insert, 3, transaction.getMerchant());
+                    bindNullable(insert, 4, transaction.getCategory());
+                    bindNullable(insert, 5, transaction.getReference());
+                    bindNullable(insert, 6, transaction.getTransactionDate());
+                    insert.bindLong(7, resolveTxnEpochMillis(transaction));
+                    insert.bindString(8, TransactionFingerprint.of(transaction));
+                    insert.bindLong(9, transaction.isSynced() ? 1 : 0);
+
+                    long id = insert.executeInsert();
+                    if (id != -1) {
+                        transaction.setId(id);
+                        inserted++;
+                        if (transaction.getRawSms() != null) {
+                            synchronized (insertBody) {
+                                insertBody.bindLong(1, id);
+                                insertBody.bindBlob(2, SmsBodyCodec.encode(transaction.getRawSms()));
+                                insertBody.executeInsert();
+                            }
+                        }
+                    }
+                }
+            }
+            if (!learnedCategories.isEmpty()) {
+                SQLiteStatement learn = learnCategoryStatement(db);
+                synchronized (learn) {
+                    for (Map.Entry<String, String> mapping : learnedCategories.entrySet()) {
+                        learn.bindString(1, mapping.getKey());
+                        learn.bindString(2, mapping.getValue());
+                        learn.executeInsert();
+                    }
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        // Includes the commit, i.e. the fsync
+        Metrics.DB_INSERT.recordSince(start);
+        Metrics.ROWS_INSERTED.add(inserted);
+        if (inserted > 0) {
+            notifyChanged(CHANGE_TRANSACTIONS);
+        }
+        return inserted;
+    }
+
+    private synchronized SQLiteStatement insertStatement(SQLiteDatabase db) {
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(INSERT_SQL);
+        }
+        return insertStatement;
+    }
+
+    private synchronized SQLiteStatement insertBodyStatement(SQLiteDatabase db) {
+        if (insertBodyStatement == null) {
+            insertBodyStatement = db.compileStatement(INSERT_BODY_SQL);
+        }
+        return insertBodyStatement;
+    }
+
+    private synchronized SQLiteStatement learnCategoryStatement(SQLiteDatabase db) {
+        if (learnCategoryStatement == null) {
+            learnCategoryStatement = db.compileStatement(LEARN_CATEGORY_SQL);
+        }
+        return learnCategoryStatement;
+    }
+
+    private synchronized SQLiteStatement markSyncedStatement(SQLiteDatabase db) {
+        if (markSyncedStatement == null) {
+            markSyncedStatement = db.compileStatement(MARK_SYNCED_SQL);
+        }
+        return markSyncedStatement;
+    }
+
+    private synchronized SQLiteStatement markSyncFailedStatement(SQLiteDatabase db) {
+        if (markSyncFailedStatement == null) {
+            markSyncFailedStatement = db.compileStatement(MARK_SYNC_FAILED_SQL);
+        }
+        return markSyncFailedStatement;
+    }
+
+    private synchronized SQLiteStatement moveSyncStateStatement(SQLiteDatabase db) {
+        if (moveSyncStateStatement == null) {
+            moveSyncStateStatement = db.compileStatement(MOVE_SYNC_STATE_SQL);
+        }
+        return moveSyncStateStatement;
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    // Parsed once at insert; falls back to arrival time when the SMS date is missing or unrecognized
+    private static long resolveTxnEpochMillis(Transaction transaction) {
+        if (transaction.getTxnEpochMillis() <= 0) {
+            long parsed = DateParser.toEpochMillis(transaction.getTransactionDate());
+            transaction.setTxnEpochMillis(parsed >= 0 ? parsed : System.currentTimeMillis());
+        }
+        return transaction.getTxnEpochMillis();
+    }
+
+    // Transactions dated in [fromMillis, toMillis), served by a range scan on idx_txn_epoch
+    public List<Transaction> getTransactionsBetween(long fromMillis, long toMillis) {
         List<Transaction> transactions = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        
-        Cursor cursor = db.query(TABLE_TRANSACTIONS, null, COL_SYNCED + " = 0", 
-                null, null, null, COL_ID + " ASC");
+
+        Cursor cursor = db.query(TABLE_TRANSACTIONS, null,
+                COL_TXN_EPOCH_MILLIS + " >= ? AND " + COL_TXN_EPOCH_MILLIS + " < ?",
+                new String[]{String.valueOf(fromMillis), String.valueOf(toMillis)},
+                null, null, COL_TXN_EPOCH_MILLIS + " ASC");
 
         if (cursor.moveToFirst()) {
             do {
@@ -99,122 +550,398 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return transactions;
     }
 
-    public void markAsSynced(long id) {
+    // Bodies aren't loaded with transactions; fetch and decode one when it's actually needed
+    public String getRawSms(long transactionId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(
+            "SELECT " + COL_BODY + " FROM " + TABLE_SMS_BODY + " WHERE " + COL_TXN_ID + " = ?",
+            new String[]{String.valueOf(transactionId)}
+        );
+        String body = null;
+        if (cursor.moveToFirst()) {
+            body = SmsBodyCodec.decode(cursor.getBlob(0));
+        }
+        cursor.close();
+        return body;
+    }
+
+    @Override
+    public String findMerchantCategory(String merchantKey) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(
+            "SELECT " + COL_CATEGORY + " FROM " + TABLE_MERCHANT_CATEGORY + " WHERE " + COL_MERCHANT_KEY + " = ?",
+            new String[]{merchantKey}
+        );
+        String category = null;
+        if (cursor.moveToFirst()) {
+            category = cursor.getString(0);
+        }
+        cursor.close();
+        return category;
+    }
+
+    @Override
+    public int saveOverride(String merchantKey, String category) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_SYNCED, 1);
-        db.update(TABLE_TRANSACTIONS, values, COL_ID + " = ?", new String[]{String.valueOf(id)});
+        db.beginTransaction();
+        try {
+            db.execSQL(OVERRIDE_CATEGORY_SQL, new Object[]{merchantKey, category});
+            // The update trigger moves each row between category rollups
+            SQLiteStatement recategorize = db.compileStatement(RECATEGORIZE_SQL);
+            int moved;
+            try {
+                recategorize.bindString(1, merchantKey);
+                recategorize.bindString(2, category);
+                moved = recategorize.executeUpdateDelete();
+            } finally {
+                recategorize.close();
+            }
+            db.setTransactionSuccessful();
+            return moved;
+        } finally {
+            db.endTransaction();
+        }
     }
 
-    public int getTodayCount() {
-        return getCountForPeriod(0);
+    // Receives unsynced rows a page at a time; return false to stop early. The list and the
+    // Transaction objects in it are reused for the next page, so don't keep references.
+    public interface UnsyncedPageHandler {
+        boolean onPage(List<Transaction> page);
     }
 
-    public int getWeekCount() {
-        return getCountForPeriod(7);
+    // Only what the Sheets row and its retry need; the body comes from sms_body by primary key
+    private static final String UNSYNCED_PAGE_SQL = "SELECT t." + COL_ID + ", t." + COL_TRANSACTION_DATE + ", t." +
+            COL_TYPE + ", t." + COL_AMOUNT_PAISE + ", t." + COL_MERCHANT + ", t." + COL_CATEGORY + ", t." +
+            COL_REFERENCE + ", b." + COL_BODY + ", t." + COL_SYNC_ATTEMPTS +
+            " FROM " + TABLE_TRANSACTIONS + " t LEFT JOIN " + TABLE_SMS_BODY + " b ON b." + COL_TXN_ID + " = t." + COL_ID +
+            " WHERE t." + COL_SYNCED + " = " + SYNC_PENDING + " AND t." + COL_NEXT_ATTEMPT_AT + " <= ? AND t." +
+            COL_ID + " > ? ORDER BY t." + COL_ID + " LIMIT ";
+
+    // Pending rows whose backoff has expired by dueBy, plus unconfirmed ones, which are always
+    // due; quarantined rows aren't counted
+    public long getUnsyncedCount(long dueBy) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM " + TABLE_TRANSACTIONS + " WHERE (" + COL_SYNCED + " = " + SYNC_PENDING +
+                " AND " + COL_NEXT_ATTEMPT_AT + " <= ?) OR " + COL_SYNCED + " = " + SYNC_UNCONFIRMED,
+                new String[]{String.valueOf(dueBy)});
     }
 
-    public int getMonthCount() {
-        return getCountForPeriod(30);
+    // Rows left unconfirmed by an earlier run, with the SMS text SheetsHelper.findWritten
+    // matches on. At most the chunks one session had queued.
+    public List<Transaction> getUnconfirmedTransactions() {
+        List<Transaction> transactions = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT t." + COL_ID + ", b." + COL_BODY + " FROM " + TABLE_TRANSACTIONS +
+                " t LEFT JOIN " + TABLE_SMS_BODY + " b ON b." + COL_TXN_ID + " = t." + COL_ID +
+                " WHERE t." + COL_SYNCED + " = " + SYNC_UNCONFIRMED, null);
+        try {
+            while (cursor.moveToNext()) {
+                Transaction t = new Transaction();
+                t.setId(cursor.getLong(0));
+                t.setRawSms(SmsBodyCodec.decode(cursor.getBlob(1)));
+                transactions.add(t);
+            }
+        } finally {
+            cursor.close();
+        }
+        return transactions;
     }
 
-    public double getTodayTotal() {
-        return getTotalForPeriod(0);
+    // When the earliest pending row may be retried, or -1 if nothing is pending
+    public long getNextSyncAttemptAt() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.longForQuery(db,
+                "SELECT COALESCE(MIN(" + COL_NEXT_ATTEMPT_AT + "), -1) FROM " + TABLE_TRANSACTIONS +
+                " WHERE " + COL_SYNCED + " = " + SYNC_PENDING, null);
     }
 
-    public double getWeekTotal() {
-        return getTotalForPeriod(7);
+    public long getQuarantinedCount() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM " + TABLE_TRANSACTIONS + " WHERE " + COL_SYNCED + " = " + SYNC_QUARANTINED, null);
     }
 
-    public double getMonthTotal() {
-        return getTotalForPeriod(30);
+    // Gives quarantined rows a fresh set of attempts, e.g. after the sheet has been fixed
+    public int requeueQuarantined() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TRANSACTIONS + " SET " +
+                COL_SYNCED + " = " + SYNC_PENDING + ", " + COL_SYNC_ATTEMPTS + " = 0, " + COL_NEXT_ATTEMPT_AT + " = 0" +
+                " WHERE " + COL_SYNCED + " = " + SYNC_QUARANTINED);
+        int requeued;
+        try {
+            requeued = update.executeUpdateDelete();
+        } finally {
+            update.close();
+        }
+        if (requeued > 0) {
+            notifyChanged(CHANGE_SYNC_STATE);
+        }
+        return requeued;
     }
 
-    private int getCountForPeriod(int daysBack) {
+    /**
+     * Streams due, unsynced rows in id order, pageSize at a time, by keyset (id > last seen
+     * id) over idx_synced; rows still backing off or quarantined are skipped. The cursor is
+     * closed before each page is handed out, so the handler may write (e.g. markAsSynced).
+     * Rows inserted meanwhile are picked up in the same pass. Returns true if every due row
+     * was handed out, false if the handler stopped.
+     */
+    public boolean forEachUnsyncedPage(int pageSize, long dueBy, UnsyncedPageHandler handler) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String dateCondition = getDateCondition(daysBack);
-        
-        Cursor cursor = db.rawQuery(
-            "SELECT COUNT(*) FROM " + TABLE_TRANSACTIONS + " WHERE " + dateCondition,
-            null
-        );
-        
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        List<Transaction> holders = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            holders.add(new Transaction());
         }
-        cursor.close();
-        return count;
+
+        String sql = UNSYNCED_PAGE_SQL + pageSize;
+        String[] args = {String.valueOf(dueBy), null};
+        long lastId = 0;
+        while (true) {
+            args[1] = String.valueOf(lastId);
+            Cursor cursor = db.rawQuery(sql, args);
+            int rows = 0;
+            try {
+                while (cursor.moveToNext()) {
+                    Transaction t = holders.get(rows++);
+                    t.setId(cursor.getLong(0));
+                    t.setTransactionDate(cursor.getString(1));
+                    t.setType(cursor.getString(2));
+                    t.setAmountPaise(cursor.getLong(3));
+                    t.setMerchant(cursor.getString(4));
+                    t.setCategory(cursor.getString(5));
+                    t.setReference(cursor.getString(6));
+                    t.setRawSms(SmsBodyCodec.decode(cursor.getBlob(7)));
+                    t.setSyncAttempts(cursor.getInt(8));
+                    t.setSynced(false);
+                }
+            } finally {
+                cursor.close();
+            }
+
+            if (rows == 0) return true;
+            lastId = holders.get(rows - 1).getId();
+            if (!handler.onPage(rows == pageSize ? holders : holders.subList(0, rows))) return false;
+            if (rows < pageSize) return true;
+        }
+    }
+
+    public void markAsSynced(long id) {
+        markAsSynced(new long[]{id});
     }
 
-    private double getTotalForPeriod(int daysBack) {
+    // Set-based: one UPDATE ... WHERE id IN (...) per MAX_BIND_ARGS ids, all in one transaction
+    // so a partial chunk is never marked synced
+    public void markAsSynced(long[] ids) {
+        if (ids.length == 0) return;
+        SQLiteDatabase db = this.getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement update = markSyncedStatement(db);
+            synchronized (update) {
+                executeForIds(update, 1, ids);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyChanged(CHANGE_SYNC_STATE);
+    }
+
+    // Pending rows are about to be sent; they stay unconfirmed until the outcome is recorded
+    public void markSyncSending(long[] ids) {
+        moveSyncState(ids, SYNC_PENDING, SYNC_UNCONFIRMED);
+    }
+
+    // Unconfirmed rows that definitely weren't written go back to pending, attempts untouched
+    public void markSyncNotSent(long[] ids) {
+        moveSyncState(ids, SYNC_UNCONFIRMED, SYNC_PENDING);
+    }
+
+    private void moveSyncState(long[] ids, int from, int to) {
+        if (ids.length == 0) return;
+        SQLiteDatabase db = this.getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement update = moveSyncStateStatement(db);
+            synchronized (update) {
+                update.bindLong(1, to);
+                update.bindLong(2, from);
+                executeForIds(update, 3, ids);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Counts a failed attempt for each row and pushes its next try out exponentially; a row
+    // reaching MAX_SYNC_ATTEMPTS is quarantined. Set-based, like markAsSynced.
+    public void markSyncFailed(long[] ids, String error, long now) {
+        if (ids.length == 0) return;
+        SQLiteDatabase db = this.getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement update = markSyncFailedStatement(db);
+            synchronized (update) {
+                bindNullable(update, 1, error);
+                update.bindLong(2, now);
+                executeForIds(update, 3, ids);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        notifyChanged(CHANGE_SYNC_STATE);
+    }
+
+    private static String idInList(int size) {
+        return COL_ID + " IN (?" + ", ?".repeat(size - 1) + ")";
+    }
+
+    // Runs an UPDATE whose IN list fills the bind args from firstIdArg to MAX_BIND_ARGS, once per
+    // list-full of ids. A short tail repeats its last id, so one compiled statement fits all sizes.
+    private static void executeForIds(SQLiteStatement update, int firstIdArg, long[] ids) {
+        int perStatement = MAX_BIND_ARGS - firstIdArg + 1;
+        for (int start = 0; start < ids.length; start += perStatement) {
+            int end = Math.min(start + perStatement, ids.length);
+            for (int i = 0; i < perStatement; i++) {
+                update.bindLong(firstIdArg + i, ids[Math.min(start + i, end - 1)]);
+            }
+            update.executeUpdateDelete();
+        }
+    }
+
+    // All dashboard numbers from at most ~30 daily_summary rows
+    public DashboardStats getDashboardStats() {
         SQLiteDatabase db = this.getReadableDatabase();
-        String dateCondition = getDateCondition(daysBack);
-        
-        Cursor cursor = db.rawQuery(
-            "SELECT SUM(amount) FROM " + TABLE_TRANSACTIONS + 
-            " WHERE " + COL_TYPE + " = 'debit' AND " + dateCondition,
-            null
-        );
-        
-        double total = 0;
-        if (cursor.moveToFirst() && !cursor.isNull(0)) {
-            total = cursor.getDouble(0);
+        String today = getStartDate(0);
+        String weekStart = getStartDate(7);
+        String monthStart = getStartDate(30);
+
+        Cursor cursor = db.rawQuery(DASHBOARD_SQL, new String[]{today, weekStart, monthStart});
+
+        try {
+            if (!cursor.moveToFirst()) {
+                return new DashboardStats(0, 0, 0, 0, 0, 0, 0);
+            }
+            // SUM over no rows is NULL, which getInt/getLong read as 0
+            return new DashboardStats(
+                cursor.getInt(0), cursor.getInt(1), cursor.getInt(2),
+                cursor.getLong(3), cursor.getLong(4), cursor.getLong(5),
+                cursor.getInt(6));
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return total;
     }
 
-    private String getDateCondition(int daysBack) {
+    private String getStartDate(int daysBack) {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
         Calendar cal = Calendar.getInstance();
-        
-        if (daysBack == 0) {
-            // Today only
-            String today = sdf.format(cal.getTime());
-            return COL_CREATED_AT + " LIKE '" + today + "%'";
-        } else {
-            cal.add(Calendar.DAY_OF_YEAR, -daysBack);
-            String startDate = sdf.format(cal.getTime());
-            return COL_CREATED_AT + " >= '" + startDate + "'";
-        }
+        cal.add(Calendar.DAY_OF_YEAR, -daysBack);
+        return sdf.format(cal.getTime());
     }
 
     public int getTotalTransactionCount() {
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_TRANSACTIONS, null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        return (int) DatabaseUtils.longForQuery(db, LEDGER_COUNT_SQL, null);
+    }
+
+    // Credits minus debits, in paise; a single-row read of ledger_state
+    public long getCurrentBalancePaise() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return DatabaseUtils.longForQuery(db, LEDGER_BALANCE_SQL, null);
+    }
+
+    /**
+     * Debits per category per calendar month, months in order, biggest category first. Like
+     * every analytics range here it covers whole local days, from the day of fromMillis up to,
+     * not including, the day of toMillis. Read from daily_category_summary, so it costs one
+     * row per day and category in the range.
+     */
+    public List<CategorySpend> getCategorySpendByMonth(long fromMillis, long toMillis) {
+        List<CategorySpend> spend = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(CATEGORY_SPEND_SQL, new String[]{dayOf(fromMillis), dayOf(toMillis)});
+        try {
+            while (cursor.moveToNext()) {
+                spend.add(new CategorySpend(cursor.getString(0), cursor.getString(1), cursor.getLong(2)));
+            }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return count;
+        return spend;
     }
 
-    public double getCurrentBalance() {
+    /**
+     * The limit merchants with the most debits, biggest first, over whole local days from the
+     * day of fromMillis up to, not including, the day of toMillis. A null merchant groups the
+     * debits nothing could be extracted for.
+     */
+    public List<MerchantSpend> getTopMerchants(long fromMillis, long toMillis, int limit) {
+        List<MerchantSpend> merchants = new ArrayList<>(limit);
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(
-            "SELECT SUM(CASE WHEN type = 'credit' THEN amount ELSE -amount END) FROM " + TABLE_TRANSACTIONS,
-            null
-        );
-        double balance = 0;
-        if (cursor.moveToFirst() && !cursor.isNull(0)) {
-            balance = cursor.getDouble(0);
+        Cursor cursor = db.rawQuery(TOP_MERCHANTS_SQL, new String[]{
+                String.valueOf(startOfDay(fromMillis)), String.valueOf(startOfDay(toMillis)),
+                String.valueOf(limit)});
+        try {
+            while (cursor.moveToNext()) {
+                merchants.add(new MerchantSpend(cursor.getString(0), cursor.getInt(1), cursor.getLong(2)));
+            }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return balance;
+        return merchants;
+    }
+
+    /**
+     * End-of-day balance for each local day with transactions, over whole local days from the
+     * day of fromMillis up to, not including, the day of toMillis. Days without any are left
+     * out; the balance carries over unchanged.
+     */
+    public List<DailyBalance> getDailyBalances(long fromMillis, long toMillis) {
+        List<DailyBalance> balances = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(DAILY_BALANCE_SQL, new String[]{dayOf(fromMillis), dayOf(toMillis)});
+        try {
+            while (cursor.moveToNext()) {
+                balances.add(new DailyBalance(cursor.getString(0), cursor.getLong(1), cursor.getLong(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return balances;
+    }
+
+    // Local calendar day, in the format of the rollups' day column
+    private static String dayOf(long epochMillis) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(epochMillis));
+    }
+
+    // Local midnight starting the day of epochMillis, the bound dayOf gives the rollups
+    private static long startOfDay(long epochMillis) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(epochMillis);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
     }
 
     private Transaction cursorToTransaction(Cursor cursor) {
         Transaction t = new Transaction();
         t.setId(cursor.getLong(cursor.getColumnIndexOrThrow(COL_ID)));
-        t.setAmount(cursor.getDouble(cursor.getColumnIndexOrThrow(COL_AMOUNT)));
+        t.setAmountPaise(cursor.getLong(cursor.getColumnIndexOrThrow(COL_AMOUNT_PAISE)));
         t.setType(cursor.getString(cursor.getColumnIndexOrThrow(COL_TYPE)));
         t.setMerchant(cursor.getString(cursor.getColumnIndexOrThrow(COL_MERCHANT)));
         t.setCategory(cursor.getString(cursor.getColumnIndexOrThrow(COL_CATEGORY)));
         t.setReference(cursor.getString(cursor.getColumnIndexOrThrow(COL_REFERENCE)));
         t.setTransactionDate(cursor.getString(cursor.getColumnIndexOrThrow(COL_TRANSACTION_DATE)));
-        t.setRawSms(cursor.getString(cursor.getColumnIndexOrThrow(COL_RAW_SMS)));
+        t.setTxnEpochMillis(cursor.getLong(cursor.getColumnIndexOrThrow(COL_TXN_EPOCH_MILLIS)));
         t.setSynced(cursor.getInt(cursor.getColumnIndexOrThrow(COL_SYNCED)) == 1);
         t.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COL_CREATED_AT)));
         return t;
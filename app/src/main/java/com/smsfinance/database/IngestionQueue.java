@@ -0,0 +1,160 @@
+package com.smsfinance.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.smsfinance.utils.MerchantCategoryCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer for new transactions. Callers hand rows to a bounded queue and one
+ * thread commits everything that arrived within COMMIT_INTERVAL_MS (up to
+ * MAX_BATCH_ROWS) in a single SQLite transaction, so a burst costs one fsync. Only that
+ * thread writes; a full queue blocks producers rather than letting them commit. Merchant
+ * categories learned while parsing the rows go into the same transaction.
+ */
+public final class IngestionQueue {
+    private static final String TAG = "IngestionQueue";
+
+    private static final int CAPACITY = 256;
+    private static final int MAX_BATCH_ROWS = 500;
+    private static final long COMMIT_INTERVAL_MS = 5;
+
+    private static IngestionQueue instance;
+
+    public static synchronized IngestionQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new IngestionQueue(DatabaseHelper.getInstance(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    private final DatabaseHelper db;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+    private IngestionQueue(DatabaseHelper db) {
+        this.db = db;
+        Thread writer = new Thread(this::runWriter, "ingestion-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public CompletableFuture<Integer> submit(Transaction transaction) {
+        return submit(Collections.singletonList(transaction));
+    }
+
+    /**
+     * Queues rows for the next group commit, waiting for room while the queue is full so a
+     * burst is held to the writer's pace. The future completes with the number of rows
+     * inserted (duplicates are skipped) once they are durable; inserted rows have their ids
+     * set. If the caller is interrupted while waiting the rows aren't queued and the future
+     * fails, so they can be submitted again. May block: not for the main thread.
+     */
+    public CompletableFuture<Integer> submit(List<Transaction> transactions) {
+        Entry entry = new Entry(transactions);
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entry.done.completeExceptionally(e);
+        }
+        return entry.done;
+    }
+
+    /**
+     * Completes once everything queued before this call is committed. Never blocks, so it
+     * is safe on the main thread; if the queue is full the future fails at once, the writer
+     * being busy with those rows already.
+     */
+    public CompletableFuture<Integer> flush() {
+        Entry marker = new Entry(Collections.emptyList());
+        if (!queue.offer(marker)) {
+            marker.done.completeExceptionally(new IllegalStateException("Ingestion queue full"));
+        }
+        return marker.done;
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Entry first = queue.take();
+                batch.add(first);
+                int rows = first.transactions.size();
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COMMIT_INTERVAL_MS);
+                while (rows < MAX_BATCH_ROWS) {
+                    Entry next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    rows += next.transactions.size();
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Ingestion writer interrupted");
+                return;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Ingestion writer error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Entry> batch) {
+        List<Transaction> rows = new ArrayList<>();
+        for (Entry entry : batch) {
+            rows.addAll(entry.transactions);
+        }
+        // Ids are how inserted rows are counted; clear any left by a rolled-back attempt
+        for (Transaction transaction : rows) {
+            transaction.setId(0);
+        }
+
+        MerchantCategoryCache categories = MerchantCategoryCache.getInstance();
+        Map<String, String> learned = categories.drainLearned();
+        try {
+            if (!rows.isEmpty() || !learned.isEmpty()) {
+                db.insertTransactions(rows, learned);
+            }
+        } catch (RuntimeException e) {
+            categories.restoreLearned(learned);
+            if (batch.size() == 1) {
+                batch.get(0).done.completeExceptionally(e);
+                return;
+            }
+            // Don't let one bad entry fail the rest of the batch
+            Log.w(TAG, "Group commit of " + rows.size() + " rows failed, retrying per entry", e);
+            for (Entry entry : batch) {
+                commit(Collections.singletonList(entry));
+            }
+            return;
+        }
+
+        for (Entry entry : batch) {
+            int inserted = 0;
+            for (Transaction transaction : entry.transactions) {
+                if (transaction.getId() > 0) inserted++;
+            }
+            entry.done.complete(inserted);
+        }
+    }
+
+    private static final class Entry {
+        final List<Transaction> transactions;
+        final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+        Entry(List<Transaction> transactions) {
+            this.transactions = transactions;
+        }
+    }
+}
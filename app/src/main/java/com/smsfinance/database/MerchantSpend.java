@@ -0,0 +1,22 @@
+package com.smsfinance.database;
+
+/**
+ * Debits to one merchant over a date range.
+ */
+public final class MerchantSpend {
+    private final String merchant;
+    private final int count;
+    private final long debitPaise;
+
+    public MerchantSpend(String merchant, int count, long debitPaise) {
+        this.merchant = merchant;
+        this.count = count;
+        this.debitPaise = debitPaise;
+    }
+
+    public String getMerchant() { return merchant; }
+
+    public int getCount() { return count; }
+
+    public long getDebitPaise() { return debitPaise; }
+}
@@ -0,0 +1,256 @@
+package com.smsfinance.database;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Names, DDL and read statements of the current schema. DatabaseHelper creates the database
+ * and runs its queries from these constants, and the unit tests and JVM benchmarks build
+ * the same schema from them on desktop SQLite, so the query plans they check are the plans
+ * the app gets. Android-free for that reason.
+ */
+final class Schema {
+    private Schema() {}
+
+    static final String TABLE_TRANSACTIONS = "transactions";
+    static final String COL_ID = "id";
+    // Exact amount in paise
+    static final String COL_AMOUNT_PAISE = "amount_paise";
+    // REAL rupee column up to v7
+    static final String COL_AMOUNT = "amount";
+    static final String COL_TYPE = "type";
+    static final String COL_MERCHANT = "merchant";
+    static final String COL_CATEGORY = "category";
+    static final String COL_REFERENCE = "reference";
+    static final String COL_TRANSACTION_DATE = "transaction_date";
+    static final String COL_TXN_EPOCH_MILLIS = "txn_epoch_millis";
+    // Inline body column up to v5; bodies now live compressed in sms_body
+    static final String COL_RAW_SMS = "raw_sms";
+    static final String COL_FINGERPRINT = "fingerprint";
+    static final String COL_SYNCED = "synced";
+    // Per-row Sheets retry state: failures so far, earliest next try, and why the last one failed
+    static final String COL_SYNC_ATTEMPTS = "sync_attempts";
+    static final String COL_NEXT_ATTEMPT_AT = "next_attempt_at";
+    static final String COL_LAST_ERROR = "last_error";
+    static final String COL_CREATED_AT = "created_at";
+
+    // Per-day rollups, maintained by triggers in the same transaction as the insert
+    static final String TABLE_DAILY_SUMMARY = "daily_summary";
+    static final String TABLE_DAILY_CATEGORY_SUMMARY = "daily_category_summary";
+    static final String COL_DAY = "day";
+    static final String COL_COUNT = "count";
+    // Totals in paise; REAL rupee debit_total/credit_total up to v7
+    static final String COL_DEBIT_PAISE = "debit_paise";
+    static final String COL_CREDIT_PAISE = "credit_paise";
+
+    // Single row (id 1) holding the ledger totals, kept current by the same triggers so the
+    // balance is one primary-key read
+    static final String TABLE_LEDGER_STATE = "ledger_state";
+    static final String COL_TXN_COUNT = "txn_count";
+    static final String COL_BALANCE_PAISE = "balance_paise";
+
+    // Local calendar day of a transaction row
+    static final String ROW_DAY = "date(%1$s." + COL_TXN_EPOCH_MILLIS + " / 1000, 'unixepoch', 'localtime')";
+
+    // Raw SMS bodies, SmsBodyCodec-encoded, one row per transaction; read only on demand
+    static final String TABLE_SMS_BODY = "sms_body";
+    static final String COL_TXN_ID = "txn_id";
+    static final String COL_BODY = "body";
+
+    // Learned and manually overridden merchant -> category mappings
+    static final String TABLE_MERCHANT_CATEGORY = "merchant_category";
+    static final String COL_MERCHANT_KEY = "merchant_key";
+    static final String COL_IS_OVERRIDE = "is_override";
+    static final String COL_UPDATED_AT = "updated_at";
+
+    static final String CREATE_TRANSACTIONS = "CREATE TABLE " + TABLE_TRANSACTIONS + " (" +
+            COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            COL_AMOUNT_PAISE + " INTEGER NOT NULL, " +
+            COL_TYPE + " TEXT NOT NULL, " +
+            COL_MERCHANT + " TEXT, " +
+            COL_CATEGORY + " TEXT, " +
+            COL_REFERENCE + " TEXT, " +
+            COL_TRANSACTION_DATE + " TEXT, " +
+            COL_TXN_EPOCH_MILLIS + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_FINGERPRINT + " TEXT, " +
+            COL_SYNCED + " INTEGER DEFAULT 0, " +
+            COL_SYNC_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_LAST_ERROR + " TEXT, " +
+            COL_CREATED_AT + " TEXT DEFAULT CURRENT_TIMESTAMP)";
+
+    static final String CREATE_TXN_EPOCH_INDEX = "CREATE INDEX idx_txn_epoch ON " + TABLE_TRANSACTIONS +
+            "(" + COL_TXN_EPOCH_MILLIS + ")";
+    static final String CREATE_SYNCED_INDEX = "CREATE INDEX idx_synced ON " + TABLE_TRANSACTIONS +
+            "(" + COL_SYNCED + ")";
+    static final String CREATE_FINGERPRINT_INDEX = "CREATE UNIQUE INDEX idx_fingerprint ON " + TABLE_TRANSACTIONS +
+            "(" + COL_FINGERPRINT + ")";
+    // Covers getTopMerchants: a range scan over debits only, without touching the table
+    static final String CREATE_MERCHANT_SPEND_INDEX = "CREATE INDEX idx_txn_debit_merchant ON " + TABLE_TRANSACTIONS +
+            "(" + COL_TXN_EPOCH_MILLIS + ", " + COL_MERCHANT + ", " + COL_AMOUNT_PAISE + ")" +
+            " WHERE " + COL_TYPE + " = 'debit'";
+
+    static final String CREATE_DAILY_SUMMARY = "CREATE TABLE " + TABLE_DAILY_SUMMARY + " (" +
+            COL_DAY + " TEXT PRIMARY KEY, " +
+            COL_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_DEBIT_PAISE + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_CREDIT_PAISE + " INTEGER NOT NULL DEFAULT 0) WITHOUT ROWID";
+    static final String CREATE_DAILY_CATEGORY_SUMMARY = "CREATE TABLE " + TABLE_DAILY_CATEGORY_SUMMARY + " (" +
+            COL_DAY + " TEXT NOT NULL, " +
+            COL_CATEGORY + " TEXT NOT NULL, " +
+            COL_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_DEBIT_PAISE + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_CREDIT_PAISE + " INTEGER NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (" + COL_DAY + ", " + COL_CATEGORY + ")) WITHOUT ROWID";
+
+    static final String CREATE_LEDGER_STATE = "CREATE TABLE " + TABLE_LEDGER_STATE + " (" +
+            COL_ID + " INTEGER PRIMARY KEY CHECK (" + COL_ID + " = 1), " +
+            COL_TXN_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_BALANCE_PAISE + " INTEGER NOT NULL DEFAULT 0)";
+    static final String INIT_LEDGER_STATE = "INSERT INTO " + TABLE_LEDGER_STATE + " (" + COL_ID + ") VALUES (1)";
+
+    static final String CREATE_SUMMARY_INSERT_TRIGGER = "CREATE TRIGGER trg_summary_insert AFTER INSERT ON " +
+            TABLE_TRANSACTIONS + " BEGIN " +
+            summaryUpsert("NEW", 1) + summaryCategoryUpsert("NEW", 1) + ledgerStateUpdate("NEW", 1) + "END";
+    static final String CREATE_SUMMARY_DELETE_TRIGGER = "CREATE TRIGGER trg_summary_delete AFTER DELETE ON " +
+            TABLE_TRANSACTIONS + " BEGIN " +
+            summaryUpsert("OLD", -1) + summaryCategoryUpsert("OLD", -1) + ledgerStateUpdate("OLD", -1) + "END";
+    // A recategorized row moves between category rollups; its day and amount stay put
+    static final String CREATE_SUMMARY_CATEGORY_UPDATE_TRIGGER = "CREATE TRIGGER trg_summary_category_update " +
+            "AFTER UPDATE OF " + COL_CATEGORY + " ON " + TABLE_TRANSACTIONS +
+            " WHEN OLD." + COL_CATEGORY + " IS NOT NEW." + COL_CATEGORY + " BEGIN " +
+            summaryCategoryUpsert("OLD", -1) + summaryCategoryUpsert("NEW", 1) + "END";
+
+    static final String CREATE_MERCHANT_CATEGORY = "CREATE TABLE " + TABLE_MERCHANT_CATEGORY + " (" +
+            COL_MERCHANT_KEY + " TEXT PRIMARY KEY, " +
+            COL_CATEGORY + " TEXT NOT NULL, " +
+            COL_IS_OVERRIDE + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_UPDATED_AT + " TEXT DEFAULT CURRENT_TIMESTAMP)";
+
+    static final String CREATE_SMS_BODY = "CREATE TABLE " + TABLE_SMS_BODY + " (" +
+            COL_TXN_ID + " INTEGER PRIMARY KEY, " +
+            COL_BODY + " BLOB NOT NULL)";
+    static final String CREATE_SMS_BODY_DELETE_TRIGGER = "CREATE TRIGGER trg_sms_body_delete AFTER DELETE ON " +
+            TABLE_TRANSACTIONS + " BEGIN " +
+            "DELETE FROM " + TABLE_SMS_BODY + " WHERE " + COL_TXN_ID + " = OLD." + COL_ID + "; END";
+
+    // What onCreate runs, in order
+    static final List<String> CREATE_STATEMENTS = Collections.unmodifiableList(Arrays.asList(
+            CREATE_TRANSACTIONS,
+            CREATE_TXN_EPOCH_INDEX,
+            CREATE_SYNCED_INDEX,
+            CREATE_FINGERPRINT_INDEX,
+            CREATE_MERCHANT_SPEND_INDEX,
+            CREATE_DAILY_SUMMARY,
+            CREATE_DAILY_CATEGORY_SUMMARY,
+            CREATE_LEDGER_STATE,
+            INIT_LEDGER_STATE,
+            CREATE_SUMMARY_INSERT_TRIGGER,
+            CREATE_SUMMARY_DELETE_TRIGGER,
+            CREATE_SUMMARY_CATEGORY_UPDATE_TRIGGER,
+            CREATE_MERCHANT_CATEGORY,
+            CREATE_SMS_BODY,
+            CREATE_SMS_BODY_DELETE_TRIGGER));
+
+    // A learned category never replaces an existing row, override or not
+    static final String LEARN_CATEGORY_SQL = "INSERT OR IGNORE INTO " + TABLE_MERCHANT_CATEGORY + " (" +
+            COL_MERCHANT_KEY + ", " + COL_CATEGORY + ") VALUES (?, ?)";
+    // ?1 merchant key, ?2 category. A manual category replaces whatever is stored
+    static final String OVERRIDE_CATEGORY_SQL = "INSERT INTO " + TABLE_MERCHANT_CATEGORY + " (" +
+            COL_MERCHANT_KEY + ", " + COL_CATEGORY + ", " + COL_IS_OVERRIDE + ") VALUES (?1, ?2, 1) " +
+            "ON CONFLICT(" + COL_MERCHANT_KEY + ") DO UPDATE SET " + COL_CATEGORY + " = excluded." + COL_CATEGORY +
+            ", " + COL_IS_OVERRIDE + " = 1, " + COL_UPDATED_AT + " = CURRENT_TIMESTAMP";
+    // ?1 merchant key, ?2 category. Matches the key MerchantCategoryCache.normalize builds;
+    // SQLite's lower() folds ASCII only, which is what bank alerts carry
+    static final String RECATEGORIZE_SQL = "UPDATE " + TABLE_TRANSACTIONS + " SET " + COL_CATEGORY + " = ?2" +
+            " WHERE lower(trim(" + COL_MERCHANT + ")) = ?1 AND " + COL_CATEGORY + " IS NOT ?2";
+
+    static final String INSERT_SQL = "INSERT OR IGNORE INTO " + TABLE_TRANSACTIONS + " (" +
+            COL_AMOUNT_PAISE + ", " + COL_TYPE + ", " + COL_MERCHANT + ", " + COL_CATEGORY + ", " +
+            COL_REFERENCE + ", " + COL_TRANSACTION_DATE + ", " + COL_TXN_EPOCH_MILLIS + ", " +
+            COL_FINGERPRINT + ", " + COL_SYNCED + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String INSERT_BODY_SQL = "INSERT OR REPLACE INTO " + TABLE_SMS_BODY + " (" +
+            COL_TXN_ID + ", " + COL_BODY + ") VALUES (?, ?)";
+
+    // ?1 today, ?2 first day of the week, ?3 first day of the month; at most ~30 rollup rows
+    static final String DASHBOARD_SQL = "SELECT " +
+            "SUM(CASE WHEN " + COL_DAY + " >= ?1 THEN " + COL_COUNT + " ELSE 0 END), " +
+            "SUM(CASE WHEN " + COL_DAY + " >= ?2 THEN " + COL_COUNT + " ELSE 0 END), " +
+            "SUM(" + COL_COUNT + "), " +
+            "SUM(CASE WHEN " + COL_DAY + " >= ?1 THEN " + COL_DEBIT_PAISE + " ELSE 0 END), " +
+            "SUM(CASE WHEN " + COL_DAY + " >= ?2 THEN " + COL_DEBIT_PAISE + " ELSE 0 END), " +
+            "SUM(" + COL_DEBIT_PAISE + "), " +
+            "(SELECT " + COL_TXN_COUNT + " FROM " + TABLE_LEDGER_STATE + " WHERE " + COL_ID + " = 1) " +
+            "FROM " + TABLE_DAILY_SUMMARY + " WHERE " + COL_DAY + " >= ?3";
+
+    static final String LEDGER_COUNT_SQL = "SELECT " + COL_TXN_COUNT + " FROM " + TABLE_LEDGER_STATE +
+            " WHERE " + COL_ID + " = 1";
+    static final String LEDGER_BALANCE_SQL = "SELECT " + COL_BALANCE_PAISE + " FROM " + TABLE_LEDGER_STATE +
+            " WHERE " + COL_ID + " = 1";
+    // ?1 first day, ?2 day after the last
+    static final String CATEGORY_SPEND_SQL = "SELECT substr(" + COL_DAY + ", 1, 7), " + COL_CATEGORY + ", " +
+            "SUM(" + COL_DEBIT_PAISE + ") FROM " + TABLE_DAILY_CATEGORY_SUMMARY +
+            " WHERE " + COL_DAY + " >= ?1 AND " + COL_DAY + " < ?2 GROUP BY 1, 2" +
+            " HAVING SUM(" + COL_DEBIT_PAISE + ") > 0 ORDER BY 1, 3 DESC";
+    // ?1 start of the first day, ?2 start of the day after the last (epoch millis), ?3 limit.
+    // The literal type = 'debit' lets the planner use the partial index
+    static final String TOP_MERCHANTS_SQL = "SELECT " + COL_MERCHANT + ", COUNT(*), SUM(" + COL_AMOUNT_PAISE + ")" +
+            " FROM " + TABLE_TRANSACTIONS + " WHERE " + COL_TYPE + " = 'debit' AND " +
+            COL_TXN_EPOCH_MILLIS + " >= ?1 AND " + COL_TXN_EPOCH_MILLIS + " < ?2" +
+            " GROUP BY " + COL_MERCHANT + " ORDER BY 3 DESC LIMIT ?3";
+    // ?1 first day, ?2 day after the last. The opening balance is the current one minus every
+    // day from ?1 on, so only days since the start of the range are read, in one snapshot.
+    static final String DAILY_BALANCE_SQL = "SELECT " + COL_DAY + ", " +
+            COL_CREDIT_PAISE + " - " + COL_DEBIT_PAISE + ", " +
+            "(" + LEDGER_BALANCE_SQL + ")" +
+            " - (SELECT COALESCE(SUM(" + COL_CREDIT_PAISE + " - " + COL_DEBIT_PAISE + "), 0) FROM " +
+            TABLE_DAILY_SUMMARY + " WHERE " + COL_DAY + " >= ?1)" +
+            " + SUM(" + COL_CREDIT_PAISE + " - " + COL_DEBIT_PAISE + ") OVER (ORDER BY " + COL_DAY + ")" +
+            " FROM " + TABLE_DAILY_SUMMARY + " WHERE " + COL_DAY + " >= ?1 AND " + COL_DAY + " < ?2" +
+            " ORDER BY " + COL_DAY;
+
+    // Read statements that must be served by a covering index or a rollup, never a full scan;
+    // SchemaQueryPlanTest holds every one of them to that
+    static final List<String> ANALYTICS_STATEMENTS = Collections.unmodifiableList(Arrays.asList(
+            DASHBOARD_SQL,
+            LEDGER_COUNT_SQL,
+            LEDGER_BALANCE_SQL,
+            CATEGORY_SPEND_SQL,
+            TOP_MERCHANTS_SQL,
+            DAILY_BALANCE_SQL));
+
+    private static String summaryUpsert(String row, int sign) {
+        return "INSERT INTO " + TABLE_DAILY_SUMMARY + " (" +
+                COL_DAY + ", " + COL_COUNT + ", " + COL_DEBIT_PAISE + ", " + COL_CREDIT_PAISE + ") VALUES (" +
+                String.format(ROW_DAY, row) + ", " + sign + ", " + signedAmount(row, "debit", sign) + ", " +
+                signedAmount(row, "credit", sign) + ") " +
+                "ON CONFLICT(" + COL_DAY + ") DO UPDATE SET " + summaryIncrements() + "; ";
+    }
+
+    private static String summaryCategoryUpsert(String row, int sign) {
+        return "INSERT INTO " + TABLE_DAILY_CATEGORY_SUMMARY + " (" +
+                COL_DAY + ", " + COL_CATEGORY + ", " + COL_COUNT + ", " + COL_DEBIT_PAISE + ", " + COL_CREDIT_PAISE + ") VALUES (" +
+                String.format(ROW_DAY, row) + ", COALESCE(" + row + "." + COL_CATEGORY + ", 'Other'), " + sign + ", " +
+                signedAmount(row, "debit", sign) + ", " + signedAmount(row, "credit", sign) + ") " +
+                "ON CONFLICT(" + COL_DAY + ", " + COL_CATEGORY + ") DO UPDATE SET " + summaryIncrements() + "; ";
+    }
+
+    private static String ledgerStateUpdate(String row, int sign) {
+        return "UPDATE " + TABLE_LEDGER_STATE + " SET " +
+                COL_TXN_COUNT + " = " + COL_TXN_COUNT + " + " + sign + ", " +
+                COL_BALANCE_PAISE + " = " + COL_BALANCE_PAISE + " + " + signedAmount(row, "credit", sign) +
+                " - " + signedAmount(row, "debit", sign) + " WHERE " + COL_ID + " = 1; ";
+    }
+
+    private static String signedAmount(String row, String type, int sign) {
+        return "(CASE WHEN " + row + "." + COL_TYPE + " = '" + type + "' THEN " +
+                (sign < 0 ? "-" : "") + row + "." + COL_AMOUNT_PAISE + " ELSE 0 END)";
+    }
+
+    private static String summaryIncrements() {
+        return COL_COUNT + " = " + COL_COUNT + " + excluded." + COL_COUNT + ", " +
+                COL_DEBIT_PAISE + " = " + COL_DEBIT_PAISE + " + excluded." + COL_DEBIT_PAISE + ", " +
+                COL_CREDIT_PAISE + " = " + COL_CREDIT_PAISE + " + excluded." + COL_CREDIT_PAISE;
+    }
+}
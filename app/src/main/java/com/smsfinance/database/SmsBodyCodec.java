@@ -0,0 +1,106 @@
+package com.smsfinance.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact storage format for raw SMS bodies: a format byte followed by raw deflate primed
+ * with a dictionary of bank-SMS phrasing, or the plain UTF-8 bytes when that is smaller.
+ */
+public final class SmsBodyCodec {
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_DEFLATE_V1 = 1;
+
+    // Boilerplate from HDFC alerts. Deflate references closer to the end are cheaper, so the
+    // most frequent phrases come last. Changing this needs a new format byte; existing rows
+    // can only be decoded with the dictionary they were written with.
+    private static final byte[] DICTIONARY_V1 = (
+            "Important: As per RBI guidelines, your account will be subject to periodic re-KYC. " +
+            "This is a system generated message, please do not reply. Ignore if already updated. " +
+            "schedule of charges NetBanking, MobileBanking or by visiting any branch. " +
+            "Dear Customer, OTP for transaction of is Valid for 5 mins. Do not share OTP " +
+            "Credit Card statement is generated. Total due min due due by cashback T&C apply " +
+            "Beware of fraudulent calls and links claiming to be from the bank, and never install " +
+            "screen-sharing apps on request. Check hdfcbank.com/alerts for current advisories. " +
+            "Stay alert against fraud: HDFC Bank never asks for your OTP, PIN, CVV or password " +
+            "over call, SMS or email. Visit hdfcbank.com/security for safe banking tips. " +
+            "If this was not done by you, call 18002586161 immediately or SMS BLOCK CC to 7308080808 " +
+            "withdrawn at ATM from A/C XX on -Jan-26 by NEFT from IMPS transfer towards REFUND " +
+            "debited from HDFC Bank Card x at on -26. Not you? Call 18002586161 to VPA (UPI Ref No " +
+            "credited to A/C *3483 on -26 by . Avl bal: Rs. Avl Bal Rs. " +
+            "debited from A/C *3483 on -26 towards Ref . Avl Bal Rs. " +
+            "Received Rs. in HDFC Bank A/C *3483 From On /26 Ref " +
+            "Not You? Call 18002586161/SMS BLOCK UPI to 7308080808 " +
+            "Sent Rs. From HDFC Bank A/C *3483 To On /26 Ref "
+    ).getBytes(StandardCharsets.US_ASCII);
+
+    // Deflater and Inflater hold native buffers; keep one per writing/reading thread
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER =
+            ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private SmsBodyCodec() {}
+
+    public static byte[] encode(String body) {
+        if (body == null) return null;
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY_V1);
+        deflater.setInput(raw);
+        deflater.finish();
+
+        byte[] out = new byte[raw.length + 1];
+        out[0] = FORMAT_DEFLATE_V1;
+        int length = 1;
+        while (!deflater.finished() && length < out.length) {
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        if (deflater.finished() && length < out.length) {
+            return Arrays.copyOf(out, length);
+        }
+
+        // Didn't shrink (short or unusual text): store as is
+        out[0] = FORMAT_PLAIN;
+        System.arraycopy(raw, 0, out, 1, raw.length);
+        return out;
+    }
+
+    public static String decode(byte[] data) {
+        if (data == null || data.length == 0) return null;
+        if (data[0] == FORMAT_PLAIN) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+        if (data[0] != FORMAT_DEFLATE_V1) {
+            throw new IllegalArgumentException("Unknown SMS body format " + data[0]);
+        }
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY_V1);
+        inflater.setInput(data, 1, data.length - 1);
+
+        byte[] out = new byte[Math.max(64, data.length * 4)];
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int n = inflater.inflate(out, length, out.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated SMS body");
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt SMS body", e);
+        }
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -2,21 +2,23 @@ package com.smsfinance.database;
 
 public class Transaction {
     private long id;
-    private double amount;
+    private long amountPaise; // exact amount in paise (1/100 rupee)
     private String type; // "debit" or "credit"
     private String merchant;
     private String category;
     private String reference;
     private String transactionDate;
+    private long txnEpochMillis; // transactionDate normalized to local midnight, 0 if not yet resolved
     private String rawSms;
     private boolean synced;
+    private int syncAttempts; // failed Sheets writes so far
     private String createdAt;
 
     public Transaction() {}
 
-    public Transaction(double amount, String type, String merchant, String category, 
+    public Transaction(long amountPaise, String type, String merchant, String category, 
                        String reference, String transactionDate, String rawSms) {
-        this.amount = amount;
+        this.amountPaise = amountPaise;
         this.type = type;
         this.merchant = merchant;
         this.category = category;
@@ -30,8 +32,8 @@ public class Transaction {
     public long getId() { return id; }
     public void setId(long id) { this.id = id; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
 
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
@@ -48,12 +50,18 @@ public class Transaction {
     public String getTransactionDate() { return transactionDate; }
     public void setTransactionDate(String transactionDate) { this.transactionDate = transactionDate; }
 
+    public long getTxnEpochMillis() { return txnEpochMillis; }
+    public void setTxnEpochMillis(long txnEpochMillis) { this.txnEpochMillis = txnEpochMillis; }
+
     public String getRawSms() { return rawSms; }
     public void setRawSms(String rawSms) { this.rawSms = rawSms; }
 
     public boolean isSynced() { return synced; }
     public void setSynced(boolean synced) { this.synced = synced; }
 
+    public int getSyncAttempts() { return syncAttempts; }
+    public void setSyncAttempts(int syncAttempts) { this.syncAttempts = syncAttempts; }
+
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,50 @@
+package com.smsfinance.database;
+
+import java.util.Locale;
+
+// Identity of a bank transaction, used by the UNIQUE index that keeps redelivered or
+// re-imported SMS from creating duplicate rows
+public final class TransactionFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TransactionFingerprint() {}
+
+    // type|amount in paise|reference|date|hash of the normalized body
+    public static String of(Transaction transaction) {
+        return of(transaction.getType(), transaction.getAmountPaise(), transaction.getReference(),
+                transaction.getTransactionDate(), transaction.getRawSms());
+    }
+
+    static String of(String type, long amountPaise, String reference, String transactionDate, String rawSms) {
+        return (type != null ? type : "") + "|" +
+                amountPaise + "|" +
+                (reference != null ? reference : "") + "|" +
+                (transactionDate != null ? transactionDate : "") + "|" +
+                String.format(Locale.US, "%016x", hashBody(rawSms));
+    }
+
+    // FNV-1a over the body lower-cased with whitespace runs collapsed, so the same SMS
+    // reassembled or re-read with different spacing hashes the same
+    static long hashBody(String body) {
+        long hash = FNV_OFFSET_BASIS;
+        if (body == null) return hash;
+
+        boolean pendingSpace = false;
+        boolean started = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            started = true;
+        }
+        return hash;
+    }
+}
@@ -3,82 +3,209 @@ package com.smsfinance.receivers;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.provider.Telephony;
 import android.telephony.SmsMessage;
 import android.util.Log;
 
-import androidx.work.Data;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
-
-import com.smsfinance.database.DatabaseHelper;
+import com.smsfinance.database.IngestionQueue;
 import com.smsfinance.database.Transaction;
-import com.smsfinance.services.SyncWorker;
+import com.smsfinance.services.SyncScheduler;
+import com.smsfinance.utils.BankProfile;
+import com.smsfinance.utils.BankRegistry;
+import com.smsfinance.utils.DateParser;
+import com.smsfinance.utils.Metrics;
+import com.smsfinance.utils.Money;
 import com.smsfinance.utils.SmsParser;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reassembles multipart SMS per sender on the main thread, then parses, stores (through
+ * the IngestionQueue) and schedules sync on a background thread via goAsync(). The
+ * broadcast is released after at most PROCESSING_BUDGET_MS even if the work is still running.
+ */
 public class SmsReceiver extends BroadcastReceiver {
     private static final String TAG = "SmsReceiver";
-    private static final String SMS_RECEIVED = "android.provider.Telephony.SMS_RECEIVED";
+
+    // The system ANRs a receiver after 10s; stay well clear of it
+    private static final long PROCESSING_BUDGET_MS = 5000;
+    private static final long SLOW_BLOCK_WARN_MS = 16;
+    // A first broadcast this soon after process start is taken to have started the process
+    private static final long COLD_START_WINDOW_MS = 5000;
+    private static final AtomicBoolean FIRST_BROADCAST = new AtomicBoolean(true);
+
+    // Single thread so messages are stored in arrival order
+    private static final ExecutorService PROCESSOR = Executors.newSingleThreadExecutor();
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor();
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (!SMS_RECEIVED.equals(intent.getAction())) {
-            return;
+        long started = SystemClock.elapsedRealtimeNanos();
+        boolean coldStart = FIRST_BROADCAST.getAndSet(false)
+                && SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime() < COLD_START_WINDOW_MS;
+        try {
+            if (!Telephony.Sms.Intents.SMS_RECEIVED_ACTION.equals(intent.getAction())) {
+                return;
+            }
+
+            List<IncomingSms> messages = reassemble(Telephony.Sms.Intents.getMessagesFromIntent(intent));
+            if (messages.isEmpty()) {
+                return;
+            }
+
+            Context appContext = context.getApplicationContext();
+            PendingResult pendingResult = goAsync();
+            AtomicBoolean finished = new AtomicBoolean();
+            long submittedAt = SystemClock.elapsedRealtime();
+
+            ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+                if (finished.compareAndSet(false, true)) {
+                    Metrics.RECEIVER_BUDGET_OVERRUNS.increment();
+                    Log.w(TAG, "SMS processing exceeded " + PROCESSING_BUDGET_MS + "ms, releasing broadcast");
+                    pendingResult.finish();
+                }
+            }, PROCESSING_BUDGET_MS, TimeUnit.MILLISECONDS);
+
+            PROCESSOR.execute(() -> {
+                try {
+                    processBankSms(appContext, messages, submittedAt + PROCESSING_BUDGET_MS, coldStart);
+                } finally {
+                    watchdog.cancel(false);
+                    if (finished.compareAndSet(false, true)) {
+                        pendingResult.finish();
+                    }
+                    Log.d(TAG, "Processed " + messages.size() + " SMS in " +
+                            (SystemClock.elapsedRealtime() - submittedAt) + "ms");
+                }
+            });
+        } finally {
+            recordBlockTime(SystemClock.elapsedRealtimeNanos() - started);
         }
+    }
 
-        Bundle bundle = intent.getExtras();
-        if (bundle == null) return;
-
-        Object[] pdus = (Object[]) bundle.get("pdus");
-        if (pdus == null) return;
-
-        String format = bundle.getString("format");
-        
-        for (Object pdu : pdus) {
-            SmsMessage smsMessage = SmsMessage.createFromPdu((byte[]) pdu, format);
-            String sender = smsMessage.getDisplayOriginatingAddress();
-            String body = smsMessage.getMessageBody();
-            
-            Log.d(TAG, "SMS from: " + sender);
-            
-            // Check if it's from HDFC
-            if (SmsParser.isHdfcSms(sender)) {
-                Log.d(TAG, "HDFC SMS detected, parsing...");
-                processHdfcSms(context, body);
+    // Joins the PDUs of each sender into one body, keeping only bank senders
+    private static List<IncomingSms> reassemble(SmsMessage[] parts) {
+        List<IncomingSms> messages = new ArrayList<>();
+        if (parts == null) return messages;
+
+        BankRegistry registry = BankRegistry.getInstance();
+        Map<String, IncomingSms> bySender = new LinkedHashMap<>();
+        for (SmsMessage part : parts) {
+            if (part == null) continue;
+            String sender = part.getOriginatingAddress();
+            IncomingSms message = bySender.get(sender);
+            if (message == null) {
+                // Non-bank senders drop out here on a hash probe, before any per-message work
+                BankProfile bank = registry.lookup(sender);
+                if (bank == null) continue;
+                message = new IncomingSms(sender, bank, part.getTimestampMillis());
+                bySender.put(sender, message);
+                messages.add(message);
+            }
+            String body = part.getMessageBody();
+            if (body != null) {
+                message.body.append(body);
             }
         }
+        return messages;
     }
 
-    private void processHdfcSms(Context context, String body) {
+    private void processBankSms(Context context, List<IncomingSms> messages, long deadline, boolean coldStart) {
         try {
-            // Parse the SMS
-            Transaction transaction = SmsParser.parse(body);
-            
-            if (transaction != null) {
-                // Save to database
-                DatabaseHelper db = DatabaseHelper.getInstance(context);
-                long id = db.insertTransaction(transaction);
-                
-                Log.d(TAG, "Transaction saved with ID: " + id + 
-                      ", Amount: " + transaction.getAmount() + 
-                      ", Type: " + transaction.getType() +
-                      ", Category: " + transaction.getCategory());
-                
-                // Trigger sync to Google Sheets
-                scheduleSyncWork(context);
-            } else {
-                Log.d(TAG, "Could not parse transaction from SMS: " + body);
+            List<Transaction> transactions = new ArrayList<>();
+            for (IncomingSms message : messages) {
+                // Parse the SMS; unparsed ones are counted in Metrics.UNPARSED. The body
+                // stays out of the log: it's personal data, and logging it isn't free
+                Transaction transaction = SmsParser.parse(message.bank, message.body.toString());
+                if (transaction == null) {
+                    Log.d(TAG, "Could not parse SMS from " + message.sender + " (" + message.body.length() + " chars)");
+                    continue;
+                }
+
+                long parsed = DateParser.toEpochMillis(transaction.getTransactionDate());
+                transaction.setTxnEpochMillis(parsed >= 0 ? parsed : message.receivedAtMillis);
+                transactions.add(transaction);
+            }
+            if (transactions.isEmpty()) return;
+
+            // Save to database with whatever else is being ingested right now
+            CompletableFuture<Integer> committed = IngestionQueue.getInstance(context).submit(transactions);
+            int inserted;
+            try {
+                // Hold the broadcast until the rows are durable so the process isn't reclaimed first
+                inserted = committed.get(Math.max(0, deadline - SystemClock.elapsedRealtime()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The broadcast is about to be released; schedule from the writer thread and
+                // hope the process lives that long
+                Log.w(TAG, "Insert still pending at the processing deadline");
+                committed.thenAccept(late -> {
+                    if (late > 0) SyncScheduler.scheduleSync(context);
+                });
+                return;
+            }
+
+            for (Transaction transaction : transactions) {
+                if (transaction.getId() > 0) {
+                    Log.d(TAG, "Transaction saved with ID: " + transaction.getId() +
+                          ", Amount: " + Money.format(transaction.getAmountPaise()) +
+                          ", Type: " + transaction.getType() +
+                          ", Category: " + transaction.getCategory());
+                } else {
+                    Log.d(TAG, "Duplicate transaction ignored, Ref: " + transaction.getReference());
+                }
+            }
+
+            if (inserted > 0 && coldStart) {
+                recordColdStart();
+            }
+            if (inserted > 0) {
+                // Trigger sync to Google Sheets (coalesced with other SMS in the same burst).
+                // Inline, so it is recorded before the caller releases the broadcast
+                SyncScheduler.scheduleSync(context);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error processing SMS", e);
         }
     }
 
-    private void scheduleSyncWork(Context context) {
-        OneTimeWorkRequest syncRequest = new OneTimeWorkRequest.Builder(SyncWorker.class)
-                .build();
-        
-        WorkManager.getInstance(context).enqueue(syncRequest);
-        Log.d(TAG, "Sync work scheduled");
+    // Process start to the first row being durable, for a process the SMS broadcast started
+    private static void recordColdStart() {
+        long sinceStart = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        Metrics.COLD_START_TO_INSERT.record(sinceStart * 1000);
+        Log.d(TAG, "First transaction stored " + sinceStart + "ms after process start");
+    }
+
+    private static void recordBlockTime(long nanos) {
+        long micros = nanos / 1000;
+        Metrics.RECEIVER_BLOCK.record(micros);
+        if (micros >= SLOW_BLOCK_WARN_MS * 1000) {
+            Log.w(TAG, "onReceive blocked the main thread for " + (micros / 1000) + "ms");
+        }
+    }
+
+    private static final class IncomingSms {
+        final String sender;
+        final BankProfile bank;
+        final long receivedAtMillis;
+        final StringBuilder body = new StringBuilder();
+
+        IncomingSms(String sender, BankProfile bank, long receivedAtMillis) {
+            this.sender = sender;
+            this.bank = bank;
+            this.receivedAtMillis = receivedAtMillis;
+        }
     }
 }
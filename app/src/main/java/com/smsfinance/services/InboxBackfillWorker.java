@@ -0,0 +1,218 @@
+package com.smsfinance.services;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.provider.Telephony;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.smsfinance.database.IngestionQueue;
+import com.smsfinance.database.Transaction;
+import com.smsfinance.utils.BankProfile;
+import com.smsfinance.utils.BankRegistry;
+import com.smsfinance.utils.DateParser;
+import com.smsfinance.utils.SmsParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * One-time import of bank SMS already in the inbox. Reads the Telephony provider in
+ * pages by _id, parses each page on a bounded pool, commits it through the IngestionQueue
+ * and checkpoints the last _id so an interrupted run resumes where it stopped.
+ */
+public class InboxBackfillWorker extends Worker {
+    private static final String TAG = "InboxBackfillWorker";
+    public static final String UNIQUE_WORK_NAME = "inbox_backfill";
+
+    // Progress keys
+    public static final String KEY_SCANNED = "scanned";
+    public static final String KEY_IMPORTED = "imported";
+
+    private static final String PREFS_NAME = "inbox_backfill";
+    private static final String KEY_LAST_SMS_ID = "last_sms_id";
+    private static final String KEY_COMPLETED = "completed";
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int PARSE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    public InboxBackfillWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Runs once per install; later inbox messages arrive through SmsReceiver
+    public static void enqueue(Context context) {
+        if (prefs(context).getBoolean(KEY_COMPLETED, false)) {
+            return;
+        }
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(InboxBackfillWorker.class).build();
+        WorkManager.getInstance(context).enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+        Log.d(TAG, "Inbox backfill scheduled");
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        SharedPreferences prefs = prefs(context);
+        IngestionQueue ingestion = IngestionQueue.getInstance(context);
+
+        List<String> senderHeaders = BankRegistry.getInstance().getSenderHeaders();
+
+        long lastId = prefs.getLong(KEY_LAST_SMS_ID, 0);
+        int scanned = 0;
+        int imported = 0;
+        long started = System.currentTimeMillis();
+
+        ExecutorService parsePool = Executors.newFixedThreadPool(PARSE_THREADS);
+        try {
+            while (!isStopped()) {
+                List<InboxMessage> page = readPage(context, lastId, senderHeaders);
+                if (page.isEmpty()) break;
+
+                List<Transaction> transactions = parsePage(parsePool, page);
+                // Shares the writer with live SMS; the page is committed once this returns
+                imported += ingestion.submit(transactions).get();
+                scanned += page.size();
+                lastId = page.get(page.size() - 1).id;
+
+                // Checkpoint only after the page is committed
+                prefs.edit().putLong(KEY_LAST_SMS_ID, lastId).apply();
+                setProgressAsync(new Data.Builder()
+                        .putInt(KEY_SCANNED, scanned)
+                        .putInt(KEY_IMPORTED, imported)
+                        .build());
+                Log.d(TAG, "Backfill progress: scanned " + scanned + ", imported " + imported);
+
+                if (page.size() < PAGE_SIZE) break;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Backfill failed at SMS id " + lastId, e);
+            return Result.retry();
+        } finally {
+            parsePool.shutdownNow();
+        }
+
+        if (isStopped()) {
+            return Result.retry();
+        }
+
+        prefs.edit().putBoolean(KEY_COMPLETED, true).apply();
+        Log.d(TAG, "Backfill complete: imported " + imported + " of " + scanned + " messages in " +
+                (System.currentTimeMillis() - started) + "ms");
+
+        if (imported > 0) {
+            SyncScheduler.scheduleSync(context);
+        }
+        return Result.success(new Data.Builder()
+                .putInt(KEY_SCANNED, scanned)
+                .putInt(KEY_IMPORTED, imported)
+                .build());
+    }
+
+    private List<InboxMessage> readPage(Context context, long afterId, List<String> senderHeaders) {
+        String[] projection = {
+            Telephony.Sms._ID,
+            Telephony.Sms.ADDRESS,
+            Telephony.Sms.BODY,
+            Telephony.Sms.DATE
+        };
+
+        // Narrow the provider query to addresses containing a registered bank header;
+        // BankRegistry.lookup has the final say
+        StringBuilder selection = new StringBuilder(Telephony.Sms._ID).append(" > ? AND (");
+        String[] selectionArgs = new String[senderHeaders.size() + 1];
+        selectionArgs[0] = String.valueOf(afterId);
+        for (int i = 0; i < senderHeaders.size(); i++) {
+            if (i > 0) selection.append(" OR ");
+            selection.append(Telephony.Sms.ADDRESS).append(" LIKE ?");
+            selectionArgs[i + 1] = "%" + senderHeaders.get(i) + "%";
+        }
+        selection.append(')');
+
+        Bundle queryArgs = new Bundle();
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection.toString());
+        queryArgs.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, selectionArgs);
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, Telephony.Sms._ID + " ASC");
+        queryArgs.putInt(ContentResolver.QUERY_ARG_LIMIT, PAGE_SIZE);
+
+        List<InboxMessage> page = new ArrayList<>();
+        Cursor cursor = context.getContentResolver().query(Telephony.Sms.Inbox.CONTENT_URI, projection, queryArgs, null);
+        if (cursor == null) return page;
+
+        try {
+            // Not every provider honours QUERY_ARG_LIMIT, so stop at a page ourselves
+            while (page.size() < PAGE_SIZE && cursor.moveToNext()) {
+                page.add(new InboxMessage(cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return page;
+    }
+
+    private List<Transaction> parsePage(ExecutorService pool, List<InboxMessage> page) throws Exception {
+        // Split the page into one slice per thread and keep results in inbox order
+        int sliceSize = (page.size() + PARSE_THREADS - 1) / PARSE_THREADS;
+        List<Future<List<Transaction>>> slices = new ArrayList<>();
+        for (int start = 0; start < page.size(); start += sliceSize) {
+            List<InboxMessage> slice = page.subList(start, Math.min(start + sliceSize, page.size()));
+            slices.add(pool.submit(() -> parseSlice(slice)));
+        }
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (Future<List<Transaction>> slice : slices) {
+            transactions.addAll(slice.get());
+        }
+        return transactions;
+    }
+
+    private static List<Transaction> parseSlice(List<InboxMessage> messages) {
+        List<Transaction> transactions = new ArrayList<>();
+        BankRegistry registry = BankRegistry.getInstance();
+        for (InboxMessage message : messages) {
+            BankProfile bank = registry.lookup(message.address);
+            if (bank == null) continue;
+
+            Transaction transaction = SmsParser.parse(bank, message.body);
+            if (transaction == null) continue;
+
+            // Old messages: fall back to when the SMS arrived, not to now
+            long parsed = DateParser.toEpochMillis(transaction.getTransactionDate());
+            transaction.setTxnEpochMillis(parsed >= 0 ? parsed : message.receivedAtMillis);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static final class InboxMessage {
+        final long id;
+        final String address;
+        final String body;
+        final long receivedAtMillis;
+
+        InboxMessage(long id, String address, String body, long receivedAtMillis) {
+            this.id = id;
+            this.address = address;
+            this.body = body;
+            this.receivedAtMillis = receivedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.smsfinance.services;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Timer for rows backing off after a failed Sheets write: when it fires it only requests a
+ * sync, which joins the normal SyncWorker chain so two syncs never run at once.
+ */
+public class SyncRetryWorker extends Worker {
+
+    public SyncRetryWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SyncScheduler.syncNow(getApplicationContext());
+        return Result.success();
+    }
+}
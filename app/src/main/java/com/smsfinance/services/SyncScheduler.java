@@ -0,0 +1,182 @@
+package com.smsfinance.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.smsfinance.utils.SheetsHelper;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules SyncWorker as a single unique work chain. A burst of SMS inside the
+ * coalescing window collapses into one run; an SMS arriving while a run is in flight
+ * queues one follow-up run, since the running one may already be past its last page.
+ * A manual sync starts at once, or joins the run already in flight.
+ */
+public final class SyncScheduler {
+    private static final String TAG = "SyncScheduler";
+    public static final String UNIQUE_WORK_NAME = "sheets_sync";
+    private static final String RETRY_WORK_NAME = "sheets_sync_retry";
+
+    private static final String PREFS_NAME = "sync_config";
+    private static final String KEY_COALESCE_WINDOW_SECONDS = "coalesce_window_seconds";
+    private static final String KEY_UNMETERED_ONLY = "unmetered_only";
+    private static final String KEY_BATCH_SIZE = "batch_size";
+
+    public static final long DEFAULT_COALESCE_WINDOW_SECONDS = 15;
+    private static final long BACKOFF_DELAY_SECONDS = 30;
+
+    // What the unique chain is doing when a new request comes in
+    private enum ChainState {
+        IDLE,
+        // Queued (e.g. waiting out the coalescing window), nothing running
+        QUEUED,
+        // Running, with nothing queued behind it
+        RUNNING,
+        // Running, with a follow-up run already queued behind it
+        RUNNING_WITH_FOLLOW_UP
+    }
+
+    private SyncScheduler() {}
+
+    // Called for every stored SMS; waits out the coalescing window before syncing. Returns
+    // once WorkManager has recorded the request, so a broadcast can be released afterwards.
+    public static void scheduleSync(Context context) {
+        enqueue(context, getCoalesceWindowSeconds(context), false);
+    }
+
+    // Runs immediately unless a sync is already running. Blocks on WorkManager's
+    // database, so call it off the main thread.
+    public static void syncNow(Context context) {
+        enqueue(context, 0, true);
+    }
+
+    // Wakes the sync chain when rows backing off after a failed write become due. A timer
+    // rather than a delayed SyncWorker, so new SMS in the meantime still sync straight away.
+    public static void scheduleRetry(Context context, long dueAtMillis) {
+        long delayMillis = Math.max(0, dueAtMillis - System.currentTimeMillis());
+        OneTimeWorkRequest retryRequest = new OneTimeWorkRequest.Builder(SyncRetryWorker.class)
+                .setInitialDelay(delayMillis, TimeUnit.MILLISECONDS)
+                .build();
+
+        // REPLACE: the latest run knows the earliest due row
+        WorkManager.getInstance(context).enqueueUniqueWork(RETRY_WORK_NAME, ExistingWorkPolicy.REPLACE, retryRequest);
+        Log.d(TAG, "Retry scheduled in " + (delayMillis / 1000) + "s");
+    }
+
+    // Synchronized so two requests never both see a running chain without a follow-up and
+    // both append one
+    private static synchronized void enqueue(Context context, long delaySeconds, boolean manual) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(isUnmeteredOnly(context) ? NetworkType.UNMETERED : NetworkType.CONNECTED)
+                .build();
+
+        Data input = new Data.Builder()
+                .putInt(SyncWorker.KEY_BATCH_SIZE, getBatchSize(context))
+                .build();
+
+        OneTimeWorkRequest syncRequest = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(delaySeconds, TimeUnit.SECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .setInputData(input)
+                .build();
+
+        ExistingWorkPolicy policy = policyFor(chainState(workManager), manual);
+        try {
+            workManager.enqueueUniqueWork(UNIQUE_WORK_NAME, policy, syncRequest).getResult().get();
+            Log.d(TAG, "Sync requested (delay " + delaySeconds + "s, " + policy + ")");
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Couldn't enqueue sync", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExistingWorkPolicy policyFor(ChainState state, boolean manual) {
+        switch (state) {
+            case QUEUED:
+                // A manual sync shouldn't wait out the coalescing window; an SMS joins it
+                return manual ? ExistingWorkPolicy.REPLACE : ExistingWorkPolicy.KEEP;
+            case RUNNING:
+                // The run may have read its last page before this SMS's row was committed,
+                // so queue one follow-up behind it. A manual sync joins the run.
+                return manual ? ExistingWorkPolicy.KEEP : ExistingWorkPolicy.APPEND_OR_REPLACE;
+            case RUNNING_WITH_FOLLOW_UP:
+                // The follow-up starts after this row was committed, so it will see it
+                return ExistingWorkPolicy.KEEP;
+            default:
+                return ExistingWorkPolicy.REPLACE;
+        }
+    }
+
+    private static ChainState chainState(WorkManager workManager) {
+        List<WorkInfo> infos;
+        try {
+            infos = workManager.getWorkInfosForUniqueWork(UNIQUE_WORK_NAME).get();
+        } catch (ExecutionException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Assume a run is in flight: at worst that costs one extra, empty run
+            Log.w(TAG, "Couldn't read sync state", e);
+            return ChainState.RUNNING;
+        }
+
+        boolean running = false;
+        boolean queued = false;
+        for (WorkInfo info : infos) {
+            WorkInfo.State state = info.getState();
+            if (state == WorkInfo.State.RUNNING) {
+                running = true;
+            } else if (state == WorkInfo.State.ENQUEUED || state == WorkInfo.State.BLOCKED) {
+                queued = true;
+            }
+        }
+        if (running) {
+            return queued ? ChainState.RUNNING_WITH_FOLLOW_UP : ChainState.RUNNING;
+        }
+        return queued ? ChainState.QUEUED : ChainState.IDLE;
+    }
+
+    public static long getCoalesceWindowSeconds(Context context) {
+        return prefs(context).getLong(KEY_COALESCE_WINDOW_SECONDS, DEFAULT_COALESCE_WINDOW_SECONDS);
+    }
+
+    public static void setCoalesceWindowSeconds(Context context, long seconds) {
+        prefs(context).edit().putLong(KEY_COALESCE_WINDOW_SECONDS, Math.max(0, seconds)).apply();
+    }
+
+    public static boolean isUnmeteredOnly(Context context) {
+        return prefs(context).getBoolean(KEY_UNMETERED_ONLY, false);
+    }
+
+    public static void setUnmeteredOnly(Context context, boolean unmeteredOnly) {
+        prefs(context).edit().putBoolean(KEY_UNMETERED_ONLY, unmeteredOnly).apply();
+    }
+
+    public static int getBatchSize(Context context) {
+        return prefs(context).getInt(KEY_BATCH_SIZE, SheetsHelper.DEFAULT_BATCH_SIZE);
+    }
+
+    public static void setBatchSize(Context context, int batchSize) {
+        prefs(context).edit().putInt(KEY_BATCH_SIZE, batchSize).apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
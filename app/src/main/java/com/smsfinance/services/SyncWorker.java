@@ -9,13 +9,18 @@ import androidx.work.WorkerParameters;
 
 import com.smsfinance.database.DatabaseHelper;
 import com.smsfinance.database.Transaction;
+import com.smsfinance.utils.Metrics;
 import com.smsfinance.utils.SheetsHelper;
 
 import java.util.List;
+import java.util.Set;
 
 public class SyncWorker extends Worker {
     private static final String TAG = "SyncWorker";
 
+    // Optional input: rows per Sheets append request
+    public static final String KEY_BATCH_SIZE = "batch_size";
+
     public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
@@ -27,14 +32,15 @@ public class SyncWorker extends Worker {
         
         try {
             DatabaseHelper db = DatabaseHelper.getInstance(getApplicationContext());
-            List<Transaction> unsynced = db.getUnsyncedTransactions();
+            long now = System.currentTimeMillis();
+            long pending = db.getUnsyncedCount(now);
             
-            if (unsynced.isEmpty()) {
-                Log.d(TAG, "No unsynced transactions");
+            if (pending == 0) {
+                Log.d(TAG, "No unsynced transactions due");
+                scheduleNextRetry(db);
                 return Result.success();
             }
-            
-            Log.d(TAG, "Found " + unsynced.size() + " unsynced transactions");
+            Log.d(TAG, "Found " + pending + " unsynced transactions due");
             
             // Initialize Google Sheets
             SheetsHelper sheets = new SheetsHelper(getApplicationContext());
@@ -43,25 +49,124 @@ public class SyncWorker extends Worker {
                 return Result.retry();
             }
             
-            // Sync each transaction
-            int syncedCount = 0;
-            for (Transaction t : unsynced) {
-                if (sheets.appendTransaction(t)) {
-                    db.markAsSynced(t.getId());
-                    syncedCount++;
-                    Log.d(TAG, "Synced transaction ID: " + t.getId());
-                } else {
-                    Log.e(TAG, "Failed to sync transaction ID: " + t.getId());
-                }
+            sheets.setBatchSize(getInputData().getInt(KEY_BATCH_SIZE, SheetsHelper.DEFAULT_BATCH_SIZE));
+            int batchSize = sheets.getBatchSize();
+
+            if (!resolveUnconfirmed(db, sheets)) {
+                return Result.retry();
             }
             
-            Log.d(TAG, "Sync complete. Synced: " + syncedCount + "/" + unsynced.size());
+            // Stream the due backlog one page per append request and DB transaction, so memory
+            // stays flat however long we were offline. Appends are not concurrent: one is in
+            // flight at a time, in page order, while up to DEFAULT_MAX_QUEUED built pages wait
+            // behind it and the next ones are read. Each page is marked synced once its request
+            // lands. SMS arriving while we run are picked up by the same pass, or by the
+            // follow-up run SyncScheduler queues.
+            int[] counts = {0, 0};
+            SheetsHelper.AppendSession session = sheets.openSession(SheetsHelper.DEFAULT_MAX_QUEUED,
+                    new SheetsHelper.ChunkListener() {
+                @Override
+                public void onChunkSending(long[] ids) {
+                    db.markSyncSending(ids);
+                }
+
+                @Override
+                public void onChunkWritten(long[] ids, int firstRow) {
+                    db.markAsSynced(ids);
+                    counts[0] += ids.length;
+                    Log.d(TAG, "Synced chunk of " + ids.length + " transactions at row " + firstRow);
+                }
+
+                @Override
+                public void onChunkFailed(long[] ids, String error, boolean rowFault) {
+                    Log.w(TAG, "Chunk of " + ids.length + " transactions failed: " + error);
+                    // Transport, auth and sheet failures aren't the rows' fault; the whole run
+                    // retries without counting an attempt against them
+                    if (rowFault) {
+                        db.markSyncFailed(ids, error, System.currentTimeMillis());
+                        counts[1] += ids.length;
+                    } else {
+                        db.markSyncNotSent(ids);
+                    }
+                }
+
+                @Override
+                public void onChunkUnconfirmed(long[] ids, String error) {
+                    // Left unconfirmed; the next run looks for these rows before resending them
+                    Log.w(TAG, "No answer for chunk of " + ids.length + " transactions: " + error);
+                }
+            });
+            boolean drained = false;
+            try {
+                drained = db.forEachUnsyncedPage(batchSize, now, page -> writePage(session, page) && !isStopped());
+            } finally {
+                // Always wait for queued chunks so the ones that landed get marked synced
+                drained &= session.finish();
+                Metrics.SYNC_ROWS.record(counts[0]);
+                Metrics.ROWS_REJECTED.add(counts[1]);
+            }
             
-            return syncedCount == unsynced.size() ? Result.success() : Result.retry();
+            if (!drained) {
+                Log.d(TAG, "Sync incomplete. Synced: " + counts[0] + ", rejected: " + counts[1]);
+                return Result.retry();
+            }
+            Log.d(TAG, "Sync complete. Synced: " + counts[0] + ", rejected: " + counts[1]);
+            scheduleNextRetry(db);
+            return Result.success();
             
         } catch (Exception e) {
             Log.e(TAG, "Sync failed with exception", e);
             return Result.retry();
         }
     }
+
+    // Rows an earlier run sent without hearing back are looked up in the sheet: the ones that
+    // landed are marked synced, the rest go back to pending. False if the sheet couldn't be read.
+    private static boolean resolveUnconfirmed(DatabaseHelper db, SheetsHelper sheets) {
+        List<Transaction> unconfirmed = db.getUnconfirmedTransactions();
+        if (unconfirmed.isEmpty()) return true;
+
+        Set<Long> written = sheets.findWritten(unconfirmed);
+        if (written == null) {
+            Log.w(TAG, "Couldn't check " + unconfirmed.size() + " unconfirmed transactions");
+            return false;
+        }
+        long[] landed = new long[written.size()];
+        long[] missing = new long[unconfirmed.size() - written.size()];
+        int l = 0;
+        int m = 0;
+        for (Transaction transaction : unconfirmed) {
+            if (written.contains(transaction.getId())) {
+                landed[l++] = transaction.getId();
+            } else {
+                missing[m++] = transaction.getId();
+            }
+        }
+        db.markAsSynced(landed);
+        db.markSyncNotSent(missing);
+        Log.d(TAG, "Unconfirmed transactions: " + landed.length + " already in the sheet, " +
+                missing.length + " to send again");
+        return true;
+    }
+
+    // A chunk the API rejects is rejected whole, so rows that have failed before are sent one
+    // per request; only the row that is actually bad keeps failing and ends up quarantined
+    private static boolean writePage(SheetsHelper.AppendSession session, List<Transaction> page) {
+        int start = 0;
+        for (int i = 0; i < page.size(); i++) {
+            if (page.get(i).getSyncAttempts() == 0) continue;
+            if (i > start && !session.write(page.subList(start, i))) return false;
+            if (!session.write(page.subList(i, i + 1))) return false;
+            start = i + 1;
+        }
+        return start == page.size() || session.write(page.subList(start, page.size()));
+    }
+
+    // Rows still backing off need a run once they're due, even if no new SMS arrives
+    private void scheduleNextRetry(DatabaseHelper db) {
+        long nextAttemptAt = db.getNextSyncAttemptAt();
+        if (nextAttemptAt > System.currentTimeMillis()) {
+            SyncScheduler.scheduleRetry(getApplicationContext(), nextAttemptAt);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.smsfinance.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * One bank's SMS templates, generated from banks.json into BankTables. Each template has an
+ * anchor keyword; a body is scanned once for all of the bank's anchors, and only templates
+ * whose anchor occurs are run, in order.
+ */
+public final class BankProfile {
+    private final String id;
+    private final String name;
+    private final String[] senders;
+    private final Template[] templates;
+    private final String[] anchors;
+    // Bit mask of the anchors starting with each lower-case ASCII character
+    private final int[] anchorsByFirstChar = new int[128];
+
+    // Senders are upper-case headers, anchors lower-case
+    BankProfile(String id, String name, String[] senders, String[] anchors, Template[] templates) {
+        this.id = id;
+        this.name = name;
+        this.senders = senders;
+        this.templates = templates;
+        this.anchors = anchors;
+        for (int i = 0; i < this.anchors.length; i++) {
+            anchorsByFirstChar[this.anchors[i].charAt(0)] |= 1 << i;
+        }
+    }
+
+    public String getId() { return id; }
+
+    public String getName() { return name; }
+
+    String[] getSenders() { return senders; }
+
+    Template[] getTemplates() { return templates; }
+
+    // Single linear scan for the anchor keywords, case-insensitive and without allocating
+    int scanAnchors(String body) {
+        int found = 0;
+        int length = body.length();
+        for (int i = 0; i < length; i++) {
+            char c = body.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c >= 128) continue;
+            int candidates = anchorsByFirstChar[c] & ~found;
+            while (candidates != 0) {
+                int bit = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                String anchor = anchors[bit];
+                if (body.regionMatches(true, i, anchor, 0, anchor.length())) found |= 1 << bit;
+            }
+        }
+        return found;
+    }
+
+    static final class Template {
+        final String name;
+        private final String regex;
+        private final int flags;
+        private volatile Pattern pattern;
+        final int anchorBit;
+        final String type;
+        // Capture groups, 0 when the template doesn't capture the field
+        final int amountGroup;
+        final int merchantGroup;
+        final int dateGroup;
+        final int referenceGroup;
+        // Used when there's no merchant group; null means extract one from the body
+        final String fixedMerchant;
+        // null means categorize the merchant
+        final String fixedCategory;
+
+        Template(String name, String regex, int flags, int anchorBit, String type, int amountGroup,
+                 int merchantGroup, int dateGroup, int referenceGroup, String fixedMerchant, String fixedCategory) {
+            this.name = name;
+            this.regex = regex;
+            this.flags = flags;
+            this.anchorBit = anchorBit;
+            this.type = type;
+            this.amountGroup = amountGroup;
+            this.merchantGroup = merchantGroup;
+            this.dateGroup = dateGroup;
+            this.referenceGroup = referenceGroup;
+            this.fixedMerchant = fixedMerchant;
+            this.fixedCategory = fixedCategory;
+        }
+
+        // Compiled on first use, so a cold start only pays for the templates its first SMS tries.
+        // The build already compiled every pattern once, so this can't throw.
+        Pattern pattern() {
+            Pattern compiled = pattern;
+            if (compiled == null) {
+                // Racing threads may both compile; either result is fine
+                compiled = Pattern.compile(regex, flags);
+                pattern = compiled;
+            }
+            return compiled;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.smsfinance.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps sender-ID headers (VM-HDFCBK -> HDFCBK) to the bank whose templates parse its SMS.
+ * The banks come from BankTables, generated from banks.json at build time; lookups hash the
+ * header in place, so non-bank senders are rejected in O(1) without allocating.
+ */
+public final class BankRegistry {
+    private static final BankRegistry INSTANCE = new BankRegistry(BankTables.banks());
+
+    public static BankRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private final List<BankProfile> banks;
+    private final List<String> senderHeaders;
+    // Open addressing over upper-case headers; power-of-two sized, at most half full
+    private final String[] keys;
+    private final BankProfile[] values;
+    private final int mask;
+
+    // The generator has already rejected headers registered twice
+    private BankRegistry(BankProfile[] banks) {
+        this.banks = Collections.unmodifiableList(Arrays.asList(banks));
+        List<String> headers = new ArrayList<>();
+        for (BankProfile bank : banks) {
+            headers.addAll(Arrays.asList(bank.getSenders()));
+        }
+        this.senderHeaders = Collections.unmodifiableList(headers);
+
+        int capacity = Integer.highestOneBit(Math.max(4, headers.size() * 2) - 1) << 1;
+        keys = new String[capacity];
+        values = new BankProfile[capacity];
+        mask = capacity - 1;
+        for (BankProfile bank : banks) {
+            for (String header : bank.getSenders()) {
+                int slot = hash(header, 0, header.length()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = header;
+                values[slot] = bank;
+            }
+        }
+    }
+
+    /**
+     * The bank for a sender address such as "VM-HDFCBK", "JD-HDFCBK-S" or "HDFCBK", or null
+     * if it isn't a known bank header (phone numbers, other businesses).
+     */
+    public BankProfile lookup(String sender) {
+        if (sender == null) return null;
+        int length = sender.length();
+        // Drop the two-letter operator/circle prefix and any trailing -S/-T/-P/-G category suffix
+        int start = length > 3 && sender.charAt(2) == '-' ? 3 : 0;
+        int end = sender.indexOf('-', start);
+        if (end < 0) end = length;
+        int headerLength = end - start;
+        if (headerLength == 0) return null;
+
+        int slot = hash(sender, start, end) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key.length() == headerLength && sender.regionMatches(true, start, key, 0, headerLength)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean isBankSms(String sender) {
+        return lookup(sender) != null;
+    }
+
+    public List<BankProfile> getBanks() {
+        return banks;
+    }
+
+    // Every registered header, e.g. to pre-filter the SMS inbox
+    public List<String> getSenderHeaders() {
+        return senderHeaders;
+    }
+
+    // Case-insensitive (ASCII) hash of s[start, end), matching the upper-case keys
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+}
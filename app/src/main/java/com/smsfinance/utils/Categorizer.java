@@ -1,94 +1,51 @@
 package com.smsfinance.utils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
+import static com.smsfinance.utils.CategoryTables.ALPHABET_SIZE;
+import static com.smsfinance.utils.CategoryTables.CATEGORY_NAMES;
+import static com.smsfinance.utils.CategoryTables.KEYWORD_CATEGORY;
+import static com.smsfinance.utils.CategoryTables.KEYWORD_COUNT;
+import static com.smsfinance.utils.CategoryTables.KEYWORD_LENGTH;
+import static com.smsfinance.utils.CategoryTables.KEYWORD_SCORE;
+import static com.smsfinance.utils.CategoryTables.KEYWORD_WHOLE_WORD;
+import static com.smsfinance.utils.CategoryTables.OUTPUT_KEYWORDS;
+import static com.smsfinance.utils.CategoryTables.OUTPUT_START;
+import static com.smsfinance.utils.CategoryTables.SYMBOLS;
+import static com.smsfinance.utils.CategoryTables.TRANSITIONS;
 
+// Keyword scoring ("smart keyword-based ML") over the automaton in CategoryTables, which is
+// generated at build time from src/main/tables/categories.json
 public class Categorizer {
     
-    // Category definitions with keywords (smart keyword-based "ML")
-    private static final Map<String, String[]> CATEGORY_KEYWORDS = new HashMap<>();
-    
-    static {
-        // Food & Dining
-        CATEGORY_KEYWORDS.put("Food", new String[]{
-            "cafe", "coffee", "restaurant", "food", "zomato", "swiggy", "dominos", "pizza",
-            "burger", "mcdonalds", "kfc", "starbucks", "subway", "dakshin", "biryani",
-            "kitchen", "eatery", "dhaba", "bakery", "chai", "tea", "juice", "freshly",
-            "barbeque", "grill", "diner", "canteen", "mess", "tiffin", "hotel", "eats"
-        });
-        
-        // Shopping
-        CATEGORY_KEYWORDS.put("Shopping", new String[]{
-            "amazon", "flipkart", "myntra", "ajio", "nykaa", "meesho", "snapdeal",
-            "mall", "store", "mart", "retail", "shop", "bazaar", "market", "dmart",
-            "reliance", "bigbasket", "grofers", "blinkit", "zepto", "instamart",
-            "decathlon", "croma", "vijay sales", "fashion", "clothing", "apparel"
-        });
-        
-        // Utilities & Bills
-        CATEGORY_KEYWORDS.put("Utilities", new String[]{
-            "electricity", "electric", "power", "bescom", "water", "gas", "pipeline",
-            "internet", "broadband", "wifi", "jio", "airtel", "vodafone", "bsnl",
-            "recharge", "mobile", "postpaid", "prepaid", "dth", "tatasky", "dish",
-            "bill", "payment", "utility"
-        });
-        
-        // Transport & Travel
-        CATEGORY_KEYWORDS.put("Transport", new String[]{
-            "uber", "ola", "rapido", "cab", "taxi", "auto", "metro", "bus", "train",
-            "irctc", "railway", "flight", "airline", "indigo", "spicejet", "vistara",
-            "makemytrip", "goibibo", "cleartrip", "yatra", "redbus", "abhibus",
-            "petrol", "diesel", "fuel", "hp", "bharat petroleum", "iocl", "parking"
-        });
-        
-        // Entertainment
-        CATEGORY_KEYWORDS.put("Entertainment", new String[]{
-            "netflix", "spotify", "amazon prime", "hotstar", "disney", "zee5",
-            "youtube", "premium", "movie", "cinema", "pvr", "inox", "bookmyshow",
-            "theatre", "concert", "event", "ticket", "gaming", "playstation", "xbox"
-        });
-        
-        // Health & Fitness
-        CATEGORY_KEYWORDS.put("Health", new String[]{
-            "pharmacy", "medical", "medicine", "apollo", "medplus", "netmeds",
-            "hospital", "clinic", "doctor", "diagnostic", "lab", "test", "health",
-            "gym", "fitness", "cult", "yoga", "wellness", "insurance", "policy"
-        });
-        
-        // Transfer
-        CATEGORY_KEYWORDS.put("Transfer", new String[]{
-            "transfer", "sent to", "paid to", "upi", "neft", "imps", "rtgs",
-            "self transfer", "own account"
-        });
-        
-        // Education
-        CATEGORY_KEYWORDS.put("Education", new String[]{
-            "school", "college", "university", "course", "udemy", "coursera",
-            "unacademy", "byju", "book", "stationery", "tuition", "class", "coaching"
-        });
-        
-        // Subscriptions
-        CATEGORY_KEYWORDS.put("Subscription", new String[]{
-            "subscription", "membership", "annual", "monthly", "renewal", "plan"
-        });
-    }
-    
     public static String categorize(String merchant, String smsBody) {
         if (merchant == null && smsBody == null) return "Other";
         
-        String searchText = ((merchant != null ? merchant : "") + " " + 
-                           (smsBody != null ? smsBody : "")).toLowerCase();
+        // Scan merchant + " " + body in one pass without building the combined string
+        String first = merchant != null ? merchant : "";
+        String second = smsBody != null ? smsBody : "";
+        int length = first.length() + 1 + second.length();
         
-        // Calculate match scores for each category
+        int[] scores = new int[CATEGORY_NAMES.length];
+        long[] seen = new long[(KEYWORD_COUNT + 63) >>> 6]; // each keyword counts once
+        
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            state = TRANSITIONS[state * ALPHABET_SIZE + symbolOf(charAt(first, second, i))];
+            for (int o = OUTPUT_START[state]; o < OUTPUT_START[state + 1]; o++) {
+                int k = OUTPUT_KEYWORDS[o];
+                if ((seen[k >>> 6] & (1L << k)) != 0) continue;
+                if (KEYWORD_WHOLE_WORD[k] != 0 && !isWholeWord(first, second, i - KEYWORD_LENGTH[k] + 1, i, length)) continue;
+                seen[k >>> 6] |= 1L << k;
+                scores[KEYWORD_CATEGORY[k]] += KEYWORD_SCORE[k];
+            }
+        }
+        
+        // Highest score wins; ties go to the category declared first
         String bestCategory = "Other";
         int bestScore = 0;
-        
-        for (Map.Entry<String, String[]> entry : CATEGORY_KEYWORDS.entrySet()) {
-            int score = calculateMatchScore(searchText, entry.getValue());
-            if (score > bestScore) {
-                bestScore = score;
-                bestCategory = entry.getKey();
+        for (int c = 0; c < scores.length; c++) {
+            if (scores[c] > bestScore) {
+                bestScore = scores[c];
+                bestCategory = CATEGORY_NAMES[c];
             }
         }
         
@@ -96,15 +53,26 @@ public class Categorizer {
         return bestScore >= 1 ? bestCategory : "Other";
     }
     
-    private static int calculateMatchScore(String text, String[] keywords) {
-        int score = 0;
-        for (String keyword : keywords) {
-            if (text.contains(keyword.toLowerCase())) {
-                // Longer keywords get higher score (more specific)
-                score += keyword.length() > 5 ? 2 : 1;
-            }
+    private static char charAt(String first, String second, int i) {
+        int split = first.length();
+        if (i < split) return first.charAt(i);
+        if (i == split) return ' ';
+        return second.charAt(i - split - 1);
+    }
+    
+    private static int symbolOf(char ch) {
+        if (ch >= 'A' && ch <= 'Z') {
+            ch += 'a' - 'A';
         }
-        return score;
+        return ch < 128 ? SYMBOLS[ch] : 0;
+    }
+    
+    private static boolean isWholeWord(String first, String second, int start, int end, int length) {
+        if (start > 0 && Character.isLetterOrDigit(charAt(first, second, start - 1))) return false;
+        // Allow a plural "s" so "cab" still matches "CABS"
+        int after = end + 1;
+        if (after < length && (charAt(first, second, after) | 0x20) == 's') after++;
+        return after == length || !Character.isLetterOrDigit(charAt(first, second, after));
     }
     
     // Get all available categories
@@ -0,0 +1,94 @@
+package com.smsfinance.utils;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+public class DateParser {
+
+    private static final String[] MONTHS = {
+        "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+
+    // Converts the dates SmsParser extracts ("06/01/26", "06-Jan-26", "06/Jan/2026", and
+    // SBI's "06Jan26") to local midnight in epoch millis. Returns -1 if the string isn't one
+    // of those formats.
+    public static long toEpochMillis(String date) {
+        if (date == null) return -1;
+        String s = date.trim();
+
+        int dayEnd;
+        int monthStart;
+        int monthEnd;
+        int firstSep = indexOfSeparator(s, 0);
+        if (firstSep < 0) {
+            // No separators: two-digit day, three-letter month, then the year
+            if (s.length() < 7) return -1;
+            dayEnd = 2;
+            monthStart = 2;
+            monthEnd = 5;
+        } else {
+            int secondSep = indexOfSeparator(s, firstSep + 1);
+            if (firstSep != 2 || secondSep < 0) return -1;
+            dayEnd = firstSep;
+            monthStart = firstSep + 1;
+            monthEnd = secondSep;
+        }
+        int yearStart = firstSep < 0 ? monthEnd : monthEnd + 1;
+
+        int day = parseDigits(s, 0, dayEnd);
+        int month = parseMonth(s, monthStart, monthEnd);
+        int year = parseDigits(s, yearStart, s.length());
+        if (day < 0 || month < 0 || year < 0) return -1;
+        // Digits-only "050126" isn't a compact date
+        if (firstSep < 0 && !Character.isLetter(s.charAt(monthStart))) return -1;
+
+        int yearDigits = s.length() - yearStart;
+        if (yearDigits == 2) {
+            year += 2000;
+        } else if (yearDigits != 4) {
+            return -1;
+        }
+
+        try {
+            return LocalDate.of(year, month, day)
+                    .atStartOfDay(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    private static int indexOfSeparator(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '-') return i;
+        }
+        return -1;
+    }
+
+    private static int parseMonth(String s, int start, int end) {
+        if (end - start == 2) {
+            return parseDigits(s, start, end);
+        }
+        if (end - start != 3) return -1;
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (s.regionMatches(true, start, MONTHS[m], 0, 3)) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseDigits(String s, int start, int end) {
+        if (start >= end) return -1;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
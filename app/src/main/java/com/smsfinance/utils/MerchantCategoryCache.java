@@ -0,0 +1,147 @@
+package com.smsfinance.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Merchant -> category lookups in front of the keyword Categorizer. Recurring merchants
+ * resolve from a bounded in-memory LRU, then from the merchant_category table, and only
+ * unseen merchants pay for a full keyword scan. Manual overrides always win. Hit rates are
+ * counted in release builds too, and read through the getters or the Metrics snapshot.
+ * What the scan learns is held until the IngestionQueue drains it into the same
+ * transaction as the rows, rather than costing a commit of its own per merchant.
+ */
+public class MerchantCategoryCache {
+    private static final int MAX_ENTRIES = 256;
+    // Learned mappings waiting for the next commit. Only outgrown if nothing is committed,
+    // and anything dropped is simply learned again later.
+    private static final int MAX_PENDING = 1024;
+
+    private static final MerchantCategoryCache INSTANCE = new MerchantCategoryCache();
+
+    public static MerchantCategoryCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<String, String> entries = new LinkedHashMap<String, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // Guarded by itself
+    private final Map<String, String> learned = new LinkedHashMap<>();
+
+    private volatile MerchantCategoryStore store;
+
+    private MerchantCategoryCache() {}
+
+    // Until a store is attached the cache is memory-only
+    public void attach(MerchantCategoryStore store) {
+        this.store = store;
+    }
+
+    public String categorize(String merchant, String smsBody) {
+        String key = normalize(merchant);
+        if (key == null) {
+            return Categorizer.categorize(merchant, smsBody);
+        }
+
+        String category;
+        synchronized (entries) {
+            category = entries.get(key);
+        }
+        if (category != null) {
+            Metrics.CATEGORY_CACHE_HITS.increment();
+            return category;
+        }
+
+        MerchantCategoryStore currentStore = store;
+        if (currentStore != null) {
+            category = currentStore.findMerchantCategory(key);
+            if (category != null) {
+                Metrics.CATEGORY_STORE_HITS.increment();
+                put(key, category);
+                return category;
+            }
+        }
+
+        Metrics.CATEGORY_CACHE_MISSES.increment();
+        category = Categorizer.categorize(merchant, smsBody);
+        put(key, category);
+        if (currentStore != null) {
+            synchronized (learned) {
+                if (learned.size() < MAX_PENDING) {
+                    learned.put(key, category);
+                }
+            }
+        }
+        return category;
+    }
+
+    // Takes the mappings learned since the last call, for the writer to store with its batch
+    public Map<String, String> drainLearned() {
+        synchronized (learned) {
+            if (learned.isEmpty()) return Collections.emptyMap();
+            Map<String, String> drained = new LinkedHashMap<>(learned);
+            learned.clear();
+            return drained;
+        }
+    }
+
+    // Hands back mappings whose commit rolled back, so the next batch stores them
+    public void restoreLearned(Map<String, String> mappings) {
+        synchronized (learned) {
+            for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                if (learned.size() >= MAX_PENDING) break;
+                learned.putIfAbsent(mapping.getKey(), mapping.getValue());
+            }
+        }
+    }
+
+    /**
+     * Records a manual recategorization: the merchant maps to category from now on, ahead of
+     * anything learned, and its stored transactions move to it. Returns how many moved.
+     * Writes to the database, so not for the main thread.
+     */
+    public int setOverride(String merchant, String category) {
+        String key = normalize(merchant);
+        if (key == null) return 0;
+
+        synchronized (learned) {
+            learned.remove(key);
+        }
+        put(key, category);
+        MerchantCategoryStore currentStore = store;
+        return currentStore != null ? currentStore.saveOverride(key, category) : 0;
+    }
+
+    public long getHitCount() {
+        return Metrics.CATEGORY_CACHE_HITS.get();
+    }
+
+    public long getStoreHitCount() {
+        return Metrics.CATEGORY_STORE_HITS.get();
+    }
+
+    public long getMissCount() {
+        return Metrics.CATEGORY_CACHE_MISSES.get();
+    }
+
+    private void put(String key, String category) {
+        synchronized (entries) {
+            entries.put(key, category);
+        }
+    }
+
+    // Returns null for merchants that don't identify anyone
+    static String normalize(String merchant) {
+        if (merchant == null) return null;
+        String key = merchant.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty() || key.equals("unknown")) return null;
+        return key;
+    }
+}
@@ -0,0 +1,14 @@
+package com.smsfinance.utils;
+
+// Persistent backing for MerchantCategoryCache, keyed by normalized merchant name. Learned
+// mappings are written by the IngestionQueue, with the rows they were learned from, and
+// never replace an override.
+public interface MerchantCategoryStore {
+
+    // Returns the stored category, or null if the merchant hasn't been seen
+    String findMerchantCategory(String merchantKey);
+
+    // Stores a manual category that wins over anything learned, and moves the merchant's
+    // existing transactions to it. Returns how many transactions moved
+    int saveOverride(String merchantKey, String category);
+}
@@ -0,0 +1,240 @@
+package com.smsfinance.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and fixed-bucket histograms for the ingest and sync pipeline,
+ * exported as a JSON snapshot. Recording is lock-free. While disabled, start() skips the
+ * clock read and every record call returns after one volatile read, so instrumented code
+ * costs next to nothing. The category cache counters are the exception: they count in
+ * every build, so release hit rates can be read too. Android-free so the JVM benchmarks
+ * can compile it.
+ */
+public final class Metrics {
+    // Microsecond buckets from 50us to 10s; anything slower lands in the overflow bucket
+    private static final long[] LATENCY_BOUNDS_US = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+    private static final long[] ROW_BOUNDS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+    private static volatile boolean enabled;
+    private static final long createdAtMillis = System.currentTimeMillis();
+
+    // Registration order is export order; filled during class initialization only
+    private static final List<Counter> counters = new ArrayList<>();
+    private static final List<Histogram> histograms = new ArrayList<>();
+
+    public static final Histogram PARSE = latency("parse");
+    public static final Histogram CATEGORIZE = latency("categorize");
+    public static final Counter CATEGORY_CACHE_HITS = alwaysOnCounter("category_cache_hits");
+    public static final Counter CATEGORY_STORE_HITS = alwaysOnCounter("category_store_hits");
+    public static final Counter CATEGORY_CACHE_MISSES = alwaysOnCounter("category_cache_misses");
+    public static final Counter UNPARSED = counter("unparsed_bank_sms");
+    public static final Histogram RECEIVER_BLOCK = latency("receiver_main_thread");
+    public static final Counter RECEIVER_BUDGET_OVERRUNS = counter("receiver_budget_overruns");
+    public static final Histogram COLD_START_TO_INSERT = latency("cold_start_to_first_insert");
+    public static final Histogram DB_INSERT = latency("db_insert_batch");
+    public static final Counter ROWS_INSERTED = counter("rows_inserted");
+    public static final Histogram TOKEN_FETCH = latency("token_fetch");
+    public static final Counter TOKEN_FETCH_FAILURES = counter("token_fetch_failures");
+    public static final Histogram SHEETS_WRITE = latency("sheets_write_http");
+    public static final Counter SHEETS_WRITE_FAILURES = counter("sheets_write_failures");
+    public static final Histogram SYNC_ROWS = new Histogram("rows_per_sync", "rows", ROW_BOUNDS);
+    public static final Counter ROWS_REJECTED = counter("sync_rows_rejected");
+
+    private Metrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    // Start of a timed section: System.nanoTime(), or 0 while disabled (recordSince ignores 0)
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    private static Counter counter(String name) {
+        return new Counter(name, true);
+    }
+
+    // Counts even while disabled; one uncontended LongAdder add per call
+    private static Counter alwaysOnCounter(String name) {
+        return new Counter(name, false);
+    }
+
+    private static Histogram latency(String name) {
+        return new Histogram(name, "us", LATENCY_BOUNDS_US);
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final boolean gated;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, boolean gated) {
+            this.name = name;
+            this.gated = gated;
+            counters.add(this);
+        }
+
+        public void increment() {
+            if (enabled || !gated) value.increment();
+        }
+
+        public void add(long n) {
+            if (enabled || !gated) value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public static final class Histogram {
+        private final String name;
+        private final String unit;
+        private final long[] bounds;
+        // counts[i] holds values <= bounds[i] (and > bounds[i - 1]); the last slot is overflow.
+        // LongAdders rather than one AtomicLongArray, so parse threads don't contend on a cache line
+        private final LongAdder[] counts;
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name, String unit, long[] bounds) {
+            this.name = name;
+            this.unit = unit;
+            this.bounds = bounds;
+            this.counts = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+            histograms.add(this);
+        }
+
+        public void record(long value) {
+            if (!enabled) return;
+            counts[bucketOf(value)].increment();
+            sum.add(value);
+            long current;
+            // Plain read first: once warmed up, max rarely changes and this stays a shared line
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry
+            }
+        }
+
+        // Records the microseconds elapsed since start()
+        public void recordSince(long startNanos) {
+            if (startNanos == 0) return;
+            record((System.nanoTime() - startNanos) / 1000);
+        }
+
+        private int bucketOf(long value) {
+            int low = 0;
+            int high = bounds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (value <= bounds[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        // Upper bound of the bucket holding the given quantile; the max for the overflow bucket
+        private long percentile(long[] snapshot, long total, double quantile) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank && snapshot[i] > 0) {
+                    return i < bounds.length ? Math.min(bounds[i], max.get()) : max.get();
+                }
+            }
+            return 0;
+        }
+
+        private void appendJson(StringBuilder out) {
+            long[] snapshot = new long[counts.length];
+            long total = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = counts[i].sum();
+                total += snapshot[i];
+            }
+
+            out.append("{\"unit\":\"").append(unit).append("\",\"count\":").append(total)
+                    .append(",\"sum\":").append(sum.sum())
+                    .append(",\"max\":").append(max.get());
+            if (total > 0) {
+                out.append(",\"p50\":").append(percentile(snapshot, total, 0.50))
+                        .append(",\"p90\":").append(percentile(snapshot, total, 0.90))
+                        .append(",\"p99\":").append(percentile(snapshot, total, 0.99));
+            }
+            out.append(",\"buckets\":{");
+            for (int i = 0; i < snapshot.length; i++) {
+                if (i > 0) out.append(',');
+                out.append('"').append(i < bounds.length ? "le_" + bounds[i] : "inf").append("\":").append(snapshot[i]);
+            }
+            out.append("}}");
+        }
+
+        private void reset() {
+            for (LongAdder count : counts) {
+                count.reset();
+            }
+            sum.reset();
+            max.set(0);
+        }
+    }
+
+    // Point-in-time copy of every metric. Values recorded during the call may or may not be included.
+    public static String snapshotJson() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\"enabled\":").append(enabled)
+                .append(",\"since_millis\":").append(createdAtMillis)
+                .append(",\"at_millis\":").append(System.currentTimeMillis())
+                .append(",\"counters\":{");
+        for (int i = 0; i < counters.size(); i++) {
+            Counter counter = counters.get(i);
+            if (i > 0) out.append(',');
+            out.append('"').append(counter.name).append("\":").append(counter.get());
+        }
+        out.append("},\"histograms\":{");
+        for (int i = 0; i < histograms.size(); i++) {
+            Histogram histogram = histograms.get(i);
+            if (i > 0) out.append(',');
+            out.append('"').append(histogram.name).append("\":");
+            histogram.appendJson(out);
+        }
+        return out.append("}}").toString();
+    }
+
+    public static void writeSnapshot(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(snapshotJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static void reset() {
+        for (Counter counter : counters) {
+            counter.value.reset();
+        }
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
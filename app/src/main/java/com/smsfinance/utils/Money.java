@@ -0,0 +1,66 @@
+package com.smsfinance.utils;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts are whole paise in a long everywhere: parsed from the SMS, stored, summed and
+ * synced without going through floating point. Android-free so the JVM benchmarks can use it.
+ */
+public final class Money {
+    // Largest rupee value that still fits in a long once multiplied by 100
+    private static final long MAX_RUPEES = Long.MAX_VALUE / 100 - 1;
+
+    private Money() {}
+
+    /**
+     * Paise in text[start, end) such as "1,23,456.78", "140" or "12.5", read in place without
+     * building a substring. Commas are skipped wherever they appear, a third decimal rounds
+     * half up, and 0 is returned when there are no digits, for anything else, or on overflow.
+     */
+    public static long parsePaise(CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start >= end) return 0;
+
+        long rupees = 0;
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean digits = false;
+        boolean inFraction = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (!inFraction) {
+                    if (rupees > (MAX_RUPEES - 9) / 10) return 0;
+                    rupees = rupees * 10 + (c - '0');
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                    fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    if (c >= '5') fraction++;
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c != ',') {
+                return 0;
+            }
+        }
+        if (!digits) return 0;
+        if (fractionDigits == 1) fraction *= 10;
+        return rupees * 100 + fraction;
+    }
+
+    public static long parsePaise(CharSequence text) {
+        return text != null ? parsePaise(text, 0, text.length()) : 0;
+    }
+
+    // Exact rupee value with two decimals, e.g. for NumberFormat or a JSON number
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    // "140.00", "-12.50": plain rupees for logs and exports
+    public static String format(long paise) {
+        return toRupees(paise).toPlainString();
+    }
+}
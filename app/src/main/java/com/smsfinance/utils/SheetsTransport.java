@@ -0,0 +1,87 @@
+package com.smsfinance.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP layer for the Sheets API. Request bodies are gzipped, and every response (including
+ * error bodies) is read to the end and closed. That is what lets HttpURLConnection hand the
+ * socket back to its keep-alive pool instead of opening a new TLS connection per request.
+ */
+final class SheetsTransport {
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    static final class Response {
+        final int code;
+        final String body;
+
+        Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+
+        boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+
+    // json is null for a request without a body, e.g. a GET
+    Response send(String method, String url, String accessToken, String json) throws IOException {
+        byte[] body = json != null ? gzip(json.getBytes(StandardCharsets.UTF_8)) : null;
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod(method);
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            conn.setReadTimeout(READ_TIMEOUT_MS);
+            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
+            if (body != null) {
+                conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+                conn.setRequestProperty("Content-Encoding", "gzip");
+                conn.setDoOutput(true);
+                // Stream the body instead of letting the connection buffer it to compute a length
+                conn.setFixedLengthStreamingMode(body.length);
+
+                try (OutputStream os = conn.getOutputStream()) {
+                    os.write(body);
+                }
+            }
+
+            int code = conn.getResponseCode();
+            InputStream in = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            return new Response(code, in != null ? readFully(in) : "");
+        } catch (IOException e) {
+            // The socket may be half-used; make sure it isn't pooled
+            conn.disconnect();
+            throw e;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    // Drains and closes; a response left unread pins its connection
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
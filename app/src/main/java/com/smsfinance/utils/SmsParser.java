@@ -6,151 +6,111 @@ import java.util.regex.Pattern;
 
 public class SmsParser {
     
-    // Pattern for UPI Sent: "Sent Rs.140.00 From HDFC Bank A/C *3483 To DAKSHIN CAFE On 06/01/26 Ref 696932272808"
-    private static final Pattern UPI_SENT_PATTERN = Pattern.compile(
-        "Sent\\s+Rs\\.?([\\d,]+\\.?\\d*).*?To\\s+(.+?)\\s+On\\s+(\\d{2}/\\d{2}/\\d{2})\\s+Ref\\s+(\\d+)",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    // Pattern for UPI Received: "Received Rs.500.00 in HDFC Bank A/C *3483 From JOHN DOE On 06/01/26 Ref 123456"
-    private static final Pattern UPI_RECEIVED_PATTERN = Pattern.compile(
-        "Received\\s+Rs\\.?([\\d,]+\\.?\\d*).*?From\\s+(.+?)\\s+On\\s+(\\d{2}/\\d{2}/\\d{2})\\s+Ref\\s+(\\d+)",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    // Pattern for regular debit: "Rs 1000.00 debited from A/C *3483 on 06-Jan-26" or "Rs.1000 debited"
-    private static final Pattern DEBIT_PATTERN = Pattern.compile(
-        "Rs\\.?\\s*([\\d,]+\\.?\\d*)\\s+debited.*?(?:on\\s+)?(\\d{2}[-/]\\w{3}[-/]\\d{2,4})?",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    // Pattern for regular credit: "Rs 5000.00 credited to A/C *3483 on 06-Jan-26"
-    private static final Pattern CREDIT_PATTERN = Pattern.compile(
-        "Rs\\.?\\s*([\\d,]+\\.?\\d*)\\s+credited.*?(?:on\\s+)?(\\d{2}[-/]\\w{3}[-/]\\d{2,4})?",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    // ATM withdrawal pattern
-    private static final Pattern ATM_PATTERN = Pattern.compile(
-        "Rs\\.?\\s*([\\d,]+\\.?\\d*).*?(?:withdrawn|ATM).*?(?:on\\s+)?(\\d{2}[-/]\\w{3}[-/]\\d{2,4})?",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
+    // Merchant after common keywords, for debit/credit messages without an explicit payee.
+    // In a holder so it's compiled only when such a message first turns up, not at class load
+    private static final class MerchantPattern {
+        static final Pattern INSTANCE = Pattern.compile(
+            "(?:to|at|for|merchant|towards)\\s+([A-Za-z0-9\\s]+?)(?:\\s+on|\\s+ref|\\.|$)",
+            Pattern.CASE_INSENSITIVE
+        );
+    }
     
-    // Generic amount pattern as fallback
-    private static final Pattern AMOUNT_PATTERN = Pattern.compile(
-        "Rs\\.?\\s*([\\d,]+\\.?\\d*)",
-        Pattern.CASE_INSENSITIVE
-    );
+    // Bank SMS templates live in src/main/tables/banks.json; BankRegistry maps sender IDs to them
+    public static boolean isBankSms(String sender) {
+        return BankRegistry.getInstance().lookup(sender) != null;
+    }
 
-    public static boolean isHdfcSms(String sender) {
-        if (sender == null) return false;
-        String lowerSender = sender.toLowerCase();
-        // Check if sender contains "hdfcbk" after a hyphen
-        return lowerSender.contains("-hdfcbk") || 
-               lowerSender.contains("hdfcbank") ||
-               lowerSender.endsWith("hdfcbk");
+    // A null result is a bank SMS we couldn't read, or a sender that isn't a known bank
+    public static Transaction parse(String sender, String smsBody) {
+        BankProfile bank = BankRegistry.getInstance().lookup(sender);
+        return bank != null ? parse(bank, smsBody) : null;
     }
 
-    public static Transaction parse(String smsBody) {
-        if (smsBody == null || smsBody.isEmpty()) return null;
-        
-        Transaction transaction = null;
-        
-        // Try UPI Sent first
-        Matcher matcher = UPI_SENT_PATTERN.matcher(smsBody);
-        if (matcher.find()) {
-            transaction = new Transaction();
-            transaction.setAmount(parseAmount(matcher.group(1)));
-            transaction.setType("debit");
-            transaction.setMerchant(cleanMerchant(matcher.group(2)));
-            transaction.setTransactionDate(matcher.group(3));
-            transaction.setReference(matcher.group(4));
-            transaction.setRawSms(smsBody);
-            transaction.setCategory(Categorizer.categorize(transaction.getMerchant(), smsBody));
-            return transaction;
-        }
-        
-        // Try UPI Received
-        matcher = UPI_RECEIVED_PATTERN.matcher(smsBody);
-        if (matcher.find()) {
-            transaction = new Transaction();
-            transaction.setAmount(parseAmount(matcher.group(1)));
-            transaction.setType("credit");
-            transaction.setMerchant(cleanMerchant(matcher.group(2)));
-            transaction.setTransactionDate(matcher.group(3));
-            transaction.setReference(matcher.group(4));
-            transaction.setRawSms(smsBody);
-            transaction.setCategory("Income");
-            return transaction;
+    // Callers only pass bank SMS, so a null result is a message we couldn't read
+    public static Transaction parse(BankProfile bank, String smsBody) {
+        long start = Metrics.start();
+        Transaction transaction = parseBody(bank, smsBody);
+        Metrics.PARSE.recordSince(start);
+        if (transaction == null) {
+            Metrics.UNPARSED.increment();
         }
+        return transaction;
+    }
+
+    private static Transaction parseBody(BankProfile bank, String smsBody) {
+        if (smsBody == null || smsBody.isEmpty()) return null;
         
-        // Try ATM withdrawal
-        matcher = ATM_PATTERN.matcher(smsBody);
-        if (matcher.find() && smsBody.toLowerCase().contains("atm")) {
-            transaction = new Transaction();
-            transaction.setAmount(parseAmount(matcher.group(1)));
-            transaction.setType("debit");
-            transaction.setMerchant("ATM Withdrawal");
-            transaction.setTransactionDate(matcher.group(2));
-            transaction.setRawSms(smsBody);
-            transaction.setCategory("Cash");
-            return transaction;
-        }
+        // Classify in one pass, then only run the templates whose anchor is present
+        int anchors = bank.scanAnchors(smsBody);
+        if (anchors == 0) return null;
         
-        // Try regular debit
-        matcher = DEBIT_PATTERN.matcher(smsBody);
-        if (matcher.find()) {
-            transaction = new Transaction();
-            transaction.setAmount(parseAmount(matcher.group(1)));
-            transaction.setType("debit");
-            transaction.setMerchant(extractMerchantFromBody(smsBody));
-            transaction.setTransactionDate(matcher.group(2));
+        for (BankProfile.Template template : bank.getTemplates()) {
+            if ((anchors & template.anchorBit) == 0) continue;
+            Matcher matcher = template.pattern().matcher(smsBody);
+            if (!matcher.find()) continue;
+            
+            Transaction transaction = new Transaction();
+            // Read straight from the match, no substring
+            transaction.setAmountPaise(Money.parsePaise(smsBody, matcher.start(template.amountGroup),
+                    matcher.end(template.amountGroup)));
+            transaction.setType(template.type);
+            if (template.merchantGroup != 0) {
+                transaction.setMerchant(cleanMerchant(matcher.group(template.merchantGroup)));
+            } else if (template.fixedMerchant != null) {
+                transaction.setMerchant(template.fixedMerchant);
+            } else {
+                transaction.setMerchant(extractMerchantFromBody(smsBody));
+            }
+            if (template.dateGroup != 0) {
+                transaction.setTransactionDate(matcher.group(template.dateGroup));
+            }
+            if (template.referenceGroup != 0) {
+                transaction.setReference(matcher.group(template.referenceGroup));
+            }
             transaction.setRawSms(smsBody);
-            transaction.setCategory(Categorizer.categorize(transaction.getMerchant(), smsBody));
-            return transaction;
-        }
-        
-        // Try regular credit
-        matcher = CREDIT_PATTERN.matcher(smsBody);
-        if (matcher.find()) {
-            transaction = new Transaction();
-            transaction.setAmount(parseAmount(matcher.group(1)));
-            transaction.setType("credit");
-            transaction.setMerchant(extractMerchantFromBody(smsBody));
-            transaction.setTransactionDate(matcher.group(2));
-            transaction.setRawSms(smsBody);
-            transaction.setCategory("Income");
+            transaction.setCategory(template.fixedCategory != null
+                    ? template.fixedCategory : categorize(transaction.getMerchant(), smsBody));
             return transaction;
         }
         
         return null;
     }
 
-    private static double parseAmount(String amountStr) {
-        if (amountStr == null) return 0;
-        // Remove commas and parse
-        String cleaned = amountStr.replace(",", "").trim();
-        try {
-            return Double.parseDouble(cleaned);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
+    private static String categorize(String merchant, String smsBody) {
+        long start = Metrics.start();
+        String category = MerchantCategoryCache.getInstance().categorize(merchant, smsBody);
+        Metrics.CATEGORIZE.recordSince(start);
+        return category;
     }
 
-    private static String cleanMerchant(String merchant) {
+    // Trims, collapses whitespace runs to one space and drops anything but letters, digits,
+    // whitespace and @.- in one pass (same result as the \s+ and [^a-zA-Z0-9\s@.-] regexes)
+    static String cleanMerchant(String merchant) {
         if (merchant == null) return "Unknown";
-        return merchant.trim()
-                .replaceAll("\\s+", " ")
-                .replaceAll("[^a-zA-Z0-9\\s@.-]", "");
+        String trimmed = merchant.trim();
+        StringBuilder cleaned = new StringBuilder(trimmed.length());
+        int length = trimmed.length();
+        for (int i = 0; i < length; i++) {
+            char c = trimmed.charAt(i);
+            if (isRegexWhitespace(c)) {
+                cleaned.append(' ');
+                while (i + 1 < length && isRegexWhitespace(trimmed.charAt(i + 1))) i++;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '@' || c == '.' || c == '-') {
+                cleaned.append(c);
+            }
+        }
+        return cleaned.toString();
     }
 
-    private static String extractMerchantFromBody(String body) {
+    // What \s matches without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    static String extractMerchantFromBody(String body) {
         // Try to find merchant info after common keywords
-        Pattern merchantPattern = Pattern.compile(
-            "(?:to|at|for|merchant|towards)\\s+([A-Za-z0-9\\s]+?)(?:\\s+on|\\s+ref|\\.|$)",
-            Pattern.CASE_INSENSITIVE
-        );
-        Matcher matcher = merchantPattern.matcher(body);
+        Matcher matcher = MerchantPattern.INSTANCE.matcher(body);
         if (matcher.find()) {
             return cleanMerchant(matcher.group(1));
         }
@@ -0,0 +1,174 @@
+package com.smsfinance.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+
+/**
+ * Plans of the analytics statements on the schema DatabaseHelper creates, built on desktop
+ * SQLite from the same Schema constants, so a schema or query change can't quietly
+ * reintroduce a table scan.
+ */
+public class SchemaQueryPlanTest {
+    // Tables the analytics statements must never read in full
+    private static final String[] NO_SCAN_TABLES = {
+            Schema.TABLE_TRANSACTIONS, Schema.TABLE_DAILY_SUMMARY,
+            Schema.TABLE_DAILY_CATEGORY_SUMMARY, Schema.TABLE_LEDGER_STATE};
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement st = conn.createStatement()) {
+            for (String sql : Schema.CREATE_STATEMENTS) {
+                st.execute(sql);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void analyticsStatementsNeverScanATable() throws SQLException {
+        for (String sql : Schema.ANALYTICS_STATEMENTS) {
+            assertNoFullScan(sql);
+        }
+    }
+
+    @Test
+    public void triggersKeepLedgerStateCurrent() throws SQLException {
+        insert(150_00, "credit", "2026-01-05T10:00:00Z", "a");
+        insert(40_00, "debit", "2026-01-05T12:00:00Z", "b");
+        insert(10_00, "debit", "2026-01-06T12:00:00Z", "c");
+
+        assertEquals(3, queryLong(Schema.LEDGER_COUNT_SQL));
+        assertEquals(100_00, queryLong(Schema.LEDGER_BALANCE_SQL));
+
+        try (Statement st = conn.createStatement()) {
+            st.execute("DELETE FROM " + Schema.TABLE_TRANSACTIONS + " WHERE " + Schema.COL_FINGERPRINT + " = 'c'");
+        }
+        assertEquals(2, queryLong(Schema.LEDGER_COUNT_SQL));
+        assertEquals(110_00, queryLong(Schema.LEDGER_BALANCE_SQL));
+    }
+
+    @Test
+    public void recategorizedRowsMoveBetweenCategoryRollups() throws SQLException {
+        insert(40_00, "debit", "2026-01-05T12:00:00Z", "a");
+        insert(10_00, "debit", "2026-01-05T13:00:00Z", "b");
+
+        try (PreparedStatement st = conn.prepareStatement(Schema.RECATEGORIZE_SQL)) {
+            st.setString(1, "merchant");
+            st.setString(2, "Shopping");
+            assertEquals(2, st.executeUpdate());
+        }
+
+        assertEquals(0, categoryDebitPaise("Food"));
+        assertEquals(50_00, categoryDebitPaise("Shopping"));
+        assertEquals(50_00, queryLong("SELECT " + Schema.COL_DEBIT_PAISE + " FROM " + Schema.TABLE_DAILY_SUMMARY));
+    }
+
+    @Test
+    public void learnedCategoryNeverReplacesAnOverride() throws SQLException {
+        learn("swiggy", "Food");
+        try (PreparedStatement st = conn.prepareStatement(Schema.OVERRIDE_CATEGORY_SQL)) {
+            st.setString(1, "swiggy");
+            st.setString(2, "Groceries");
+            st.executeUpdate();
+        }
+        learn("swiggy", "Food");
+
+        assertEquals("Groceries", queryString("SELECT " + Schema.COL_CATEGORY + " FROM " +
+                Schema.TABLE_MERCHANT_CATEGORY + " WHERE " + Schema.COL_MERCHANT_KEY + " = 'swiggy'"));
+        assertEquals(1, queryLong("SELECT " + Schema.COL_IS_OVERRIDE + " FROM " +
+                Schema.TABLE_MERCHANT_CATEGORY + " WHERE " + Schema.COL_MERCHANT_KEY + " = 'swiggy'"));
+    }
+
+    // Fails if sql's plan reads one of NO_SCAN_TABLES in full, or reaches transactions
+    // through anything but a covering index
+    private void assertNoFullScan(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        boolean ok = true;
+        try (PreparedStatement st = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                String detail = rs.getString("detail");
+                plan.append("\n  ").append(detail);
+                for (String table : NO_SCAN_TABLES) {
+                    if (detail.startsWith("SCAN " + table)) ok = false;
+                }
+                if (detail.startsWith("SEARCH " + Schema.TABLE_TRANSACTIONS) && !detail.contains("COVERING INDEX")) {
+                    ok = false;
+                }
+            }
+        }
+        assertFalse("Empty plan for " + sql, plan.length() == 0);
+        if (!ok) {
+            fail("Full scan or table lookup in plan for " + sql + plan);
+        }
+    }
+
+    private void insert(long amountPaise, String type, String instant, String fingerprint) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.INSERT_SQL)) {
+            st.setLong(1, amountPaise);
+            st.setString(2, type);
+            st.setString(3, "MERCHANT");
+            st.setString(4, "Food");
+            st.setString(5, fingerprint);
+            st.setString(6, instant);
+            st.setLong(7, Instant.parse(instant).toEpochMilli());
+            st.setString(8, fingerprint);
+            st.setInt(9, 0);
+            st.executeUpdate();
+        }
+    }
+
+    private void learn(String merchantKey, String category) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.LEARN_CATEGORY_SQL)) {
+            st.setString(1, merchantKey);
+            st.setString(2, category);
+            st.executeUpdate();
+        }
+    }
+
+    private long categoryDebitPaise(String category) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement("SELECT " + Schema.COL_DEBIT_PAISE + " FROM " +
+                Schema.TABLE_DAILY_CATEGORY_SUMMARY + " WHERE " + Schema.COL_CATEGORY + " = ?")) {
+            st.setString(1, category);
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private String queryString(String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.smsfinance.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Base64;
+
+public class SmsBodyCodecTest {
+    private static final String UPI_DEBIT = "Sent Rs.250.00\nFrom HDFC Bank A/C *3483\nTo SWIGGY\n" +
+            "On 05/01/26\nRef 600123456789\nNot You?\nCall 18002586161/SMS BLOCK UPI to 7308080808";
+
+    // UPI_DEBIT as stored by the first release of the format. Rows on disk keep these bytes,
+    // so a change to DICTIONARY_V1 or the framing that can't read them must fail here.
+    private static final String UPI_DEBIT_V1 =
+            "AYOpNzI10DMw4MKliwuoKzjc0909kguo2cBU38AQaAIXyAQzAwNDI2MTUzNzC0sumKO5SHE0AA==";
+
+    @Test
+    public void bankAlertTakesTheDeflatePath() {
+        byte[] encoded = SmsBodyCodec.encode(UPI_DEBIT);
+
+        assertEquals(1, encoded[0]);
+        assertTrue(encoded.length < UPI_DEBIT.length() / 2);
+        assertEquals(UPI_DEBIT, SmsBodyCodec.decode(encoded));
+    }
+
+    @Test
+    public void decodesBodiesWrittenByTheFirstRelease() {
+        assertEquals(UPI_DEBIT, SmsBodyCodec.decode(Base64.getDecoder().decode(UPI_DEBIT_V1)));
+    }
+
+    @Test
+    public void shortBodyIsStoredPlain() {
+        byte[] encoded = SmsBodyCodec.encode("Hi");
+
+        assertArrayEquals(new byte[]{0, 'H', 'i'}, encoded);
+        assertEquals("Hi", SmsBodyCodec.decode(encoded));
+    }
+
+    @Test
+    public void nonAsciiBodiesRoundTrip() {
+        String hindi = "प्रिय ग्राहक, आपके खाते से ₹1,250.00 डेबिट किए गए। Ref 600123456789";
+        assertEquals(hindi, SmsBodyCodec.decode(SmsBodyCodec.encode(hindi)));
+
+        String mixed = UPI_DEBIT + " — ₹ café 🙂";
+        assertEquals(mixed, SmsBodyCodec.decode(SmsBodyCodec.encode(mixed)));
+    }
+
+    @Test
+    public void emptyBodyRoundTrips() {
+        byte[] encoded = SmsBodyCodec.encode("");
+
+        assertArrayEquals(new byte[]{0}, encoded);
+        assertEquals("", SmsBodyCodec.decode(encoded));
+    }
+
+    @Test
+    public void nullStaysNull() {
+        assertNull(SmsBodyCodec.encode(null));
+        assertNull(SmsBodyCodec.decode(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormatIsRejected() {
+        SmsBodyCodec.decode(new byte[]{9, 1, 2});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedBodyIsRejected() {
+        byte[] encoded = SmsBodyCodec.encode(UPI_DEBIT);
+        byte[] truncated = new byte[encoded.length / 2];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        SmsBodyCodec.decode(truncated);
+    }
+}
@@ -0,0 +1,105 @@
+package com.smsfinance.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.smsfinance.database.Transaction;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * One alert per non-HDFC template in banks.json, laid out the way those banks send them, so
+ * a template that stops matching (or a date that stops parsing) fails here rather than
+ * silently dropping or misdating a real message.
+ */
+public class BankTemplatesTest {
+    private static final long JAN_5_2026 = LocalDate.of(2026, 1, 5)
+            .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @Test
+    public void iciciUpiDebit() {
+        Transaction t = parse("JD-ICICIT-S", "ICICI Bank Acct XX123 debited for Rs 250.00 on 05-Jan-26; " +
+                "SWIGGY credited. UPI:600123456789. Call 18002662 for dispute. SMS BLOCK 123 to 9215676766.");
+
+        assertTransaction(t, "debit", 25_000, "SWIGGY", "600123456789");
+        assertEquals("Food", t.getCategory());
+    }
+
+    @Test
+    public void iciciCreditWith() {
+        Transaction t = parse("VM-ICICIB", "Dear Customer, Acct XX123 is credited with Rs 5,000.00 on " +
+                "05-Jan-26 from RAHUL SHARMA. UPI:600123456789-ICICI Bank.");
+
+        assertTransaction(t, "credit", 500_000, null, null);
+        assertEquals("Income", t.getCategory());
+    }
+
+    @Test
+    public void iciciCreditColon() {
+        Transaction t = parse("AX-ICICIB", "ICICI Bank Account XX123 credited:Rs. 1,500.00 on 05-Jan-26. " +
+                "Info NEFT-HDFCN52026010512345-ACME PAYROLL. Available Balance is Rs. 20,000.00.");
+
+        assertTransaction(t, "credit", 150_000, null, null);
+    }
+
+    @Test
+    public void sbiUpiDebit() {
+        Transaction t = parse("VM-SBIUPI", "Dear UPI user A/C X1234 debited by 250.0 on date 05Jan26 " +
+                "trf to SWIGGY Refno 600123456789. If not u? call 1800111109. -SBI");
+
+        assertTransaction(t, "debit", 25_000, "SWIGGY", "600123456789");
+        assertEquals("Food", t.getCategory());
+    }
+
+    @Test
+    public void sbiUpiCreditFromNamedPayer() {
+        Transaction t = parse("BZ-SBIINB", "Dear SBI UPI User, ur A/cX1234 credited by Rs500 on 05Jan26 " +
+                "by RAHUL SHARMA (Ref no 600123456789)");
+
+        assertTransaction(t, "credit", 50_000, "RAHUL SHARMA", "600123456789");
+        assertEquals("Income", t.getCategory());
+    }
+
+    // SBI often leaves the payer out entirely
+    @Test
+    public void sbiUpiCreditWithoutPayer() {
+        Transaction t = parse("BZ-SBIINB", "Dear SBI UPI User, ur A/cX1234 credited by Rs500 on 05Jan26 " +
+                "by  (Ref no 600123456789)");
+
+        assertTransaction(t, "credit", 50_000, "Unknown", "600123456789");
+    }
+
+    @Test
+    public void compactDatesParse() {
+        assertEquals(JAN_5_2026, DateParser.toEpochMillis("05Jan26"));
+        assertEquals(JAN_5_2026, DateParser.toEpochMillis("05jan2026"));
+        assertEquals(-1, DateParser.toEpochMillis("050126"));
+        assertEquals(-1, DateParser.toEpochMillis("05Jan"));
+        assertEquals(-1, DateParser.toEpochMillis("32Jan26"));
+    }
+
+    @Test
+    public void unknownSenderIsNotParsed() {
+        assertNull(SmsParser.parse("VM-ACMEBK", "Rs 250.00 debited on 05-Jan-26"));
+    }
+
+    private static Transaction parse(String sender, String body) {
+        Transaction t = SmsParser.parse(sender, body);
+        assertNotNull("No template matched: " + body, t);
+        return t;
+    }
+
+    // A null merchant or reference isn't checked
+    private static void assertTransaction(Transaction t, String type, long amountPaise, String merchant,
+                                          String reference) {
+        assertEquals(type, t.getType());
+        assertEquals(amountPaise, t.getAmountPaise());
+        assertEquals(JAN_5_2026, DateParser.toEpochMillis(t.getTransactionDate()));
+        if (merchant != null) assertEquals(merchant, t.getMerchant());
+        if (reference != null) assertEquals(reference, t.getReference());
+    }
+}
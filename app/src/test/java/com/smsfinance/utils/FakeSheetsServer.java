@@ -0,0 +1,177 @@
+package com.smsfinance.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local stand-in for the Sheets values endpoint. Records every request, answers appends the
+ * way the API does, with the range the rows landed in, and answers reads with the SMS column
+ * of what was appended. An append can be made to fail, with or without its rows landing.
+ */
+final class FakeSheetsServer implements AutoCloseable {
+    static {
+        // The JDK server writes response headers and body separately; with Nagle on, the
+        // client's delayed ACK then stalls every request ~40 ms and swamps any timing.
+        // Read once, when the first server is created.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    static final class Request {
+        final String method;
+        final String path;
+        final String query;
+        final String contentEncoding;
+        final int rows;
+        // Client port, i.e. which TCP connection carried the request
+        final int remotePort;
+
+        Request(String method, String path, String query, String contentEncoding, int rows, int remotePort) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.contentEncoding = contentEncoding;
+            this.rows = rows;
+            this.remotePort = remotePort;
+        }
+    }
+
+    private final HttpServer server;
+    private final List<Request> requests = new ArrayList<>();
+    // Column G of every row, starting with the header in row 1
+    private final List<String> smsColumn = new ArrayList<>();
+    private int nextRow = 2;
+    private int failCode;
+    private String failBody;
+    private boolean failApplied;
+    private volatile int latencyMillis;
+
+    FakeSheetsServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String valuesUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/values/";
+    }
+
+    synchronized List<Request> requests() {
+        return new ArrayList<>(requests);
+    }
+
+    // The next append is answered with code and body; applied says whether its rows land anyway
+    synchronized void failNextAppend(int code, String body, boolean applied) {
+        failCode = code;
+        failBody = body;
+        failApplied = applied;
+    }
+
+    // Delays every response, standing in for the round trip to the real API
+    void setLatencyMillis(int latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    synchronized int rowsReceived() {
+        int rows = 0;
+        for (Request request : requests) {
+            rows += request.rows;
+        }
+        return rows;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        byte[] body = readFully(exchange.getRequestBody());
+        if ("gzip".equals(encoding)) {
+            body = readFully(new GZIPInputStream(new ByteArrayInputStream(body)));
+        }
+        JSONArray values = body.length > 0
+                ? new JSONObject(new String(body, StandardCharsets.UTF_8)).getJSONArray("values")
+                : new JSONArray();
+
+        int code = 200;
+        String response;
+        synchronized (this) {
+            requests.add(new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestURI().getQuery(), encoding, values.length(),
+                    exchange.getRemoteAddress().getPort()));
+
+            if ("GET".equals(exchange.getRequestMethod())) {
+                JSONArray rows = new JSONArray();
+                for (String sms : smsColumn) {
+                    rows.put(new JSONArray().put(sms));
+                }
+                response = new JSONObject().put("majorDimension", "ROWS").put("values", rows).toString();
+            } else if (failCode != 0) {
+                code = failCode;
+                response = failBody;
+                if (failApplied) {
+                    append(values);
+                }
+                failCode = 0;
+            } else {
+                int firstRow = nextRow;
+                append(values);
+                response = new JSONObject().put("updates", new JSONObject()
+                        .put("updatedRange", "Sheet1!A" + firstRow + ":H" + (nextRow - 1))
+                        .put("updatedRows", values.length())).toString();
+            }
+        }
+
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Guarded by this
+    private void append(JSONArray values) {
+        if (smsColumn.isEmpty()) {
+            smsColumn.add("SMS");
+        }
+        for (int i = 0; i < values.length(); i++) {
+            smsColumn.add(values.getJSONArray(i).getString(6));
+        }
+        nextRow += values.length();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,204 @@
+package com.smsfinance.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.smsfinance.database.Transaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SheetsAppendSessionTest {
+    private static final int CHUNKS = 6;
+    private static final int CHUNK_ROWS = 100;
+
+    private static final String GRID_LIMIT_ERROR = "{\"error\":{\"code\":400,\"message\":" +
+            "\"Range ('Sheet1'!A1001:H1100) exceeds grid limits. Max rows: 1000, max columns: 26\"," +
+            "\"status\":\"INVALID_ARGUMENT\"}}";
+    private static final String INVALID_VALUE_ERROR = "{\"error\":{\"code\":400,\"message\":" +
+            "\"Invalid values[3][6]: list_value {}\",\"status\":\"INVALID_ARGUMENT\"}}";
+
+    private FakeSheetsServer server;
+    private SheetsHelper sheets;
+    private final Recorder recorder = new Recorder();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeSheetsServer();
+        sheets = new SheetsHelper(null, server.valuesUrl());
+        sheets.setAccessToken("test-token");
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void appendsEveryChunkInOrder() {
+        assertTrue(sync());
+
+        List<FakeSheetsServer.Request> requests = server.requests();
+        assertEquals(CHUNKS, requests.size());
+        for (FakeSheetsServer.Request request : requests) {
+            assertEquals("POST", request.method);
+            assertTrue(request.path, request.path.endsWith(":append"));
+            assertTrue(request.query, request.query.contains("insertDataOption=INSERT_ROWS"));
+        }
+
+        // Reported in the order written, at the rows the responses gave
+        assertEquals(CHUNKS, recorder.sending);
+        for (int i = 0; i < CHUNKS; i++) {
+            assertEquals(2 + i * CHUNK_ROWS, (int) recorder.firstRows.get(i));
+        }
+        for (int i = 0; i < CHUNKS * CHUNK_ROWS; i++) {
+            assertEquals(i + 1, (long) recorder.written.get(i));
+        }
+    }
+
+    @Test
+    public void reusesOneConnectionForAllChunks() {
+        assertTrue(sync());
+
+        List<FakeSheetsServer.Request> requests = server.requests();
+        int port = requests.get(0).remotePort;
+        for (FakeSheetsServer.Request request : requests) {
+            assertEquals("chunk sent on a new connection", port, request.remotePort);
+        }
+    }
+
+    @Test
+    public void gzipsRequestBodies() {
+        assertTrue(sync());
+
+        for (FakeSheetsServer.Request request : server.requests()) {
+            assertEquals("gzip", request.contentEncoding);
+        }
+        assertEquals(CHUNKS * CHUNK_ROWS, server.rowsReceived());
+    }
+
+    @Test
+    public void gridErrorStopsTheSessionWithoutBlamingTheRows() {
+        server.failNextAppend(400, GRID_LIMIT_ERROR, false);
+
+        assertFalse(sync());
+
+        assertEquals(0, recorder.rowFaults);
+        // Every chunk handed over is reported unwritten, however many were queued by then
+        assertEquals(recorder.sending * CHUNK_ROWS, recorder.notWritten.size());
+        assertTrue(recorder.written.isEmpty());
+        // Chunks queued behind the failed one are never sent
+        assertEquals(1, server.requests().size());
+    }
+
+    @Test
+    public void invalidValueIsTheRowsFault() {
+        server.failNextAppend(400, INVALID_VALUE_ERROR, false);
+
+        assertTrue(sync());
+
+        assertEquals(1, recorder.rowFaults);
+        assertEquals((CHUNKS - 1) * CHUNK_ROWS, recorder.written.size());
+    }
+
+    @Test
+    public void rowFaultNeedsAContentError() {
+        assertTrue(SheetsHelper.isRowFault(400, INVALID_VALUE_ERROR));
+        assertTrue(SheetsHelper.isRowFault(413, ""));
+        assertFalse(SheetsHelper.isRowFault(400, GRID_LIMIT_ERROR));
+        assertFalse(SheetsHelper.isRowFault(400, "not json"));
+        assertFalse(SheetsHelper.isRowFault(401, INVALID_VALUE_ERROR));
+        assertFalse(SheetsHelper.isRowFault(429, ""));
+    }
+
+    @Test
+    public void rowsOfALostResponseAreFoundInTheSheet() {
+        // Applied, but the client hears a 503
+        server.failNextAppend(503, "{}", true);
+
+        assertFalse(sync());
+
+        assertEquals(CHUNK_ROWS, recorder.unconfirmed.size());
+        List<Transaction> unconfirmed = new ArrayList<>();
+        for (Transaction transaction : SheetsBatchingTest.transactions(CHUNKS * CHUNK_ROWS)) {
+            if (recorder.unconfirmed.contains(transaction.getId())) {
+                unconfirmed.add(transaction);
+            }
+        }
+        assertEquals(recorder.unconfirmed, sheets.findWritten(unconfirmed));
+    }
+
+    @Test
+    public void rowsOfARejectedAppendAreNotFoundInTheSheet() {
+        server.failNextAppend(503, "{}", false);
+
+        assertFalse(sync());
+
+        List<Transaction> unconfirmed = SheetsBatchingTest.transactions(CHUNK_ROWS);
+        assertTrue(sheets.findWritten(unconfirmed).isEmpty());
+    }
+
+    // Writes the chunks the way SyncWorker does, reusing one page of Transaction objects
+    private boolean sync() {
+        SheetsHelper.AppendSession session = sheets.openSession(SheetsHelper.DEFAULT_MAX_QUEUED, recorder);
+
+        List<Transaction> all = SheetsBatchingTest.transactions(CHUNKS * CHUNK_ROWS);
+        List<Transaction> page = SheetsBatchingTest.transactions(CHUNK_ROWS);
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            for (int i = 0; i < CHUNK_ROWS; i++) {
+                Transaction source = all.get(chunk * CHUNK_ROWS + i);
+                page.get(i).setId(source.getId());
+                page.get(i).setRawSms(source.getRawSms());
+            }
+            if (!session.write(page)) break;
+        }
+        return session.finish();
+    }
+
+    private static final class Recorder implements SheetsHelper.ChunkListener {
+        int sending;
+        int rowFaults;
+        final List<Integer> firstRows = new ArrayList<>();
+        final List<Long> written = new ArrayList<>();
+        final List<Long> notWritten = new ArrayList<>();
+        final Set<Long> unconfirmed = new HashSet<>();
+
+        @Override
+        public void onChunkSending(long[] ids) {
+            sending++;
+        }
+
+        @Override
+        public void onChunkWritten(long[] ids, int firstRow) {
+            firstRows.add(firstRow);
+            for (long id : ids) {
+                written.add(id);
+            }
+        }
+
+        @Override
+        public void onChunkFailed(long[] ids, String error, boolean rowFault) {
+            if (rowFault) {
+                rowFaults++;
+                return;
+            }
+            for (long id : ids) {
+                notWritten.add(id);
+            }
+        }
+
+        @Override
+        public void onChunkUnconfirmed(long[] ids, String error) {
+            for (long id : ids) {
+                unconfirmed.add(id);
+            }
+        }
+    }
+}
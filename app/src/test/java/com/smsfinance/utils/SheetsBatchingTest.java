@@ -0,0 +1,75 @@
+package com.smsfinance.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.smsfinance.database.Transaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetsBatchingTest {
+    private FakeSheetsServer server;
+    private SheetsHelper sheets;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeSheetsServer();
+        sheets = new SheetsHelper(null, server.valuesUrl());
+        sheets.setAccessToken("test-token");
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void sendsOneRequestPerChunk() {
+        int batchSize = 200;
+        int rowCount = 450;
+        sheets.setBatchSize(batchSize);
+
+        assertTrue(sheets.appendTransactions(transactions(rowCount)));
+
+        List<FakeSheetsServer.Request> requests = server.requests();
+        assertEquals((rowCount + batchSize - 1) / batchSize, requests.size());
+        assertEquals(rowCount, server.rowsReceived());
+        assertEquals(200, requests.get(0).rows);
+        assertEquals(200, requests.get(1).rows);
+        assertEquals(50, requests.get(2).rows);
+    }
+
+    @Test
+    public void exactMultipleOfBatchSizeHasNoEmptyTrailingRequest() {
+        sheets.setBatchSize(50);
+
+        assertTrue(sheets.appendTransactions(transactions(100)));
+
+        assertEquals(2, server.requests().size());
+        assertEquals(100, server.rowsReceived());
+    }
+
+    @Test
+    public void singleRowIsOneRequest() {
+        assertTrue(sheets.appendTransactions(transactions(1)));
+
+        assertEquals(1, server.requests().size());
+    }
+
+    static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction t = new Transaction((100 + i) * 100L, (i & 3) == 0 ? "credit" : "debit",
+                    "MERCHANT " + (i % 20), "Food", String.valueOf(600000000000L + i), "06/01/26",
+                    "Rs " + (100 + i) + " debited from a/c **1234 to MERCHANT " + (i % 20));
+            t.setId(i + 1);
+            transactions.add(t);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,93 @@
+package com.smsfinance.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.smsfinance.database.Transaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Rows per second a sync pushes through FakeSheetsServer with a fixed round trip per
+ * request, for the batched session SyncWorker uses and for one row per request as the
+ * app used to send them. The rates are printed; the assertion only guards against the
+ * batched path losing its advantage, so it holds on a slow CI machine too.
+ */
+public class SheetsThroughputTest {
+    private static final int LATENCY_MS = 5;
+    private static final int BACKLOG_ROWS = 4000;
+    // One request per row is slow by design; a smaller backlog gives a stable rate sooner
+    private static final int SINGLE_ROW_BACKLOG = 100;
+
+    private FakeSheetsServer server;
+    private SheetsHelper sheets;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeSheetsServer();
+        sheets = new SheetsHelper(null, server.valuesUrl());
+        sheets.setAccessToken("test-token");
+        server.setLatencyMillis(LATENCY_MS);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void batchedSessionOutrunsOneRowPerRequest() {
+        // Warm up the JIT, the JSON and gzip paths, and the keep-alive connection
+        rowsPerSecond(SheetsHelper.DEFAULT_BATCH_SIZE, BACKLOG_ROWS);
+        rowsPerSecond(1, 20);
+
+        double batched = rowsPerSecond(SheetsHelper.DEFAULT_BATCH_SIZE, BACKLOG_ROWS);
+        double singleRow = rowsPerSecond(1, SINGLE_ROW_BACKLOG);
+        System.out.printf("Sheets sync over a %d ms round trip: %.0f rows/s in chunks of %d, %.0f rows/s one row per request%n",
+                LATENCY_MS, batched, SheetsHelper.DEFAULT_BATCH_SIZE, singleRow);
+
+        assertTrue("batched " + batched + " rows/s vs single-row " + singleRow + " rows/s",
+                batched > 10 * singleRow);
+    }
+
+    // Syncs rows the way SyncWorker does, reusing one page of Transaction objects
+    private double rowsPerSecond(int batchSize, int rows) {
+        int before = server.rowsReceived();
+        List<Transaction> all = SheetsBatchingTest.transactions(rows);
+        List<Transaction> page = SheetsBatchingTest.transactions(batchSize);
+
+        long start = System.nanoTime();
+        SheetsHelper.AppendSession session = sheets.openSession(SheetsHelper.DEFAULT_MAX_QUEUED,
+                new SheetsHelper.ChunkListener() {
+            @Override
+            public void onChunkSending(long[] ids) { }
+
+            @Override
+            public void onChunkWritten(long[] ids, int firstRow) { }
+
+            @Override
+            public void onChunkFailed(long[] ids, String error, boolean rowFault) { }
+
+            @Override
+            public void onChunkUnconfirmed(long[] ids, String error) { }
+        });
+        for (int offset = 0; offset < rows; offset += batchSize) {
+            int size = Math.min(batchSize, rows - offset);
+            for (int i = 0; i < size; i++) {
+                Transaction source = all.get(offset + i);
+                page.get(i).setId(source.getId());
+                page.get(i).setRawSms(source.getRawSms());
+            }
+            assertTrue(session.write(page.subList(0, size)));
+        }
+        assertTrue(session.finish());
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertEquals(rows, server.rowsReceived() - before);
+        return rows * 1e9 / elapsedNanos;
+    }
+}
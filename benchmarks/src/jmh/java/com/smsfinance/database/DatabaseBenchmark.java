@@ -0,0 +1,313 @@
+package com.smsfinance.database;
+
+import com.smsfinance.utils.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert and aggregate SQL from DatabaseHelper, run against a file-backed desktop SQLite
+ * (sqlite-jdbc) with the schema from Schema and a pre-populated history.
+ */
+@State(Scope.Benchmark)
+public class DatabaseBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Same statement as DatabaseHelper.markAsSynced(long[])
+    private static final int MAX_BIND_ARGS = 999;
+    private static final String MARK_SYNCED_SQL = "UPDATE transactions SET synced = 1 WHERE id IN (?" +
+            ", ?".repeat(MAX_BIND_ARGS - 1) + ")";
+
+    @Param({"10000"})
+    public int historyRows;
+
+    // DELETE is the old rollback journal, WAL what DatabaseHelper enables now
+    @Param({"DELETE", "WAL"})
+    public String journalMode;
+
+    private File dbFile;
+    private Connection conn;
+    private PreparedStatement insert;
+    private PreparedStatement insertBody;
+    private String[] messages;
+    private String[] dayBounds;
+    private long now;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbFile = File.createTempFile("sms_finance_bench", ".db");
+        conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode=" + journalMode);
+            st.execute("PRAGMA synchronous=FULL");
+        }
+        try (Statement st = conn.createStatement()) {
+            for (String sql : Schema.CREATE_STATEMENTS) {
+                st.execute(sql);
+            }
+        }
+
+        messages = Corpus.messages(Corpus.ALL);
+        insert = conn.prepareStatement(Schema.INSERT_SQL);
+        insertBody = conn.prepareStatement(Schema.INSERT_BODY_SQL);
+        now = System.currentTimeMillis();
+        dayBounds = new String[]{dayString(0), dayString(7), dayString(30)};
+
+        // Spread the history over the last year
+        conn.setAutoCommit(false);
+        for (int i = 0; i < historyRows; i++) {
+            insertRow(i, now - (i % 365) * DAY_MILLIS);
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        insert.close();
+        insertBody.close();
+        conn.close();
+        dbFile.delete();
+    }
+
+    // One transaction (and fsync) per row, as a lone insertTransaction does
+    @Benchmark
+    public int insertAutocommit() throws SQLException {
+        conn.setAutoCommit(false);
+        int inserted = insertRow(sequence++, now);
+        conn.commit();
+        conn.setAutoCommit(true);
+        return inserted;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        conn.setAutoCommit(false);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insertRow(sequence++, now);
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    @Benchmark
+    public void dashboardStats(Blackhole bh) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.DASHBOARD_SQL)) {
+            for (int i = 0; i < dayBounds.length; i++) {
+                st.setString(i + 1, dayBounds[i]);
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                for (int col = 1; col <= 7; col++) {
+                    bh.consume(rs.getLong(col));
+                }
+            }
+        }
+    }
+
+    // Raw-ledger aggregate the summary tables replace, for comparison
+    @Benchmark
+    public void ledgerMonthTotal(Blackhole bh) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(
+                "SELECT COUNT(*), SUM(CASE WHEN type = 'debit' THEN amount_paise ELSE 0 END) " +
+                "FROM transactions WHERE txn_epoch_millis >= ?")) {
+            st.setLong(1, now - 30 * DAY_MILLIS);
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                bh.consume(rs.getLong(1));
+                bh.consume(rs.getLong(2));
+            }
+        }
+    }
+
+    // getCurrentBalancePaise(): the single ledger_state row
+    @Benchmark
+    public long currentBalance() throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.LEDGER_BALANCE_SQL);
+             ResultSet rs = st.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // What getCurrentBalancePaise() summed before ledger_state, for comparison
+    @Benchmark
+    public long summaryBalance() throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(
+                "SELECT SUM(credit_paise - debit_paise) FROM daily_summary");
+             ResultSet rs = st.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // A year of monthly category spend
+    @Benchmark
+    public void categorySpendByMonth(Blackhole bh) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.CATEGORY_SPEND_SQL)) {
+            st.setString(1, dayString(365));
+            st.setString(2, dayString(-1));
+            consumeRows(st, bh);
+        }
+    }
+
+    @Benchmark
+    public void topMerchants(Blackhole bh) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.TOP_MERCHANTS_SQL)) {
+            st.setLong(1, now - 30 * DAY_MILLIS);
+            st.setLong(2, now + DAY_MILLIS);
+            st.setInt(3, 10);
+            consumeRows(st, bh);
+        }
+    }
+
+    @Benchmark
+    public void dailyBalances(Blackhole bh) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(Schema.DAILY_BALANCE_SQL)) {
+            st.setString(1, dayString(30));
+            st.setString(2, dayString(-1));
+            consumeRows(st, bh);
+        }
+    }
+
+    private static void consumeRows(PreparedStatement st, Blackhole bh) throws SQLException {
+        try (ResultSet rs = st.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int col = 1; col <= columns; col++) {
+                    bh.consume(rs.getObject(col));
+                }
+            }
+        }
+    }
+
+    // Marks the whole history synced, as SyncWorker does after uploading it
+    @State(Scope.Benchmark)
+    public static class SyncState {
+        long[] ids;
+        PreparedStatement perRow;
+        PreparedStatement setBased;
+        PreparedStatement reset;
+
+        @Setup(Level.Trial)
+        public void prepare(DatabaseBenchmark bench) throws SQLException {
+            ids = new long[bench.historyRows];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = i + 1;
+            }
+            perRow = bench.conn.prepareStatement("UPDATE transactions SET synced = 1 WHERE id = ?");
+            setBased = bench.conn.prepareStatement(MARK_SYNCED_SQL);
+            reset = bench.conn.prepareStatement("UPDATE transactions SET synced = 0 WHERE id <= ?");
+        }
+
+        @Setup(Level.Invocation)
+        public void markUnsynced(DatabaseBenchmark bench) throws SQLException {
+            reset.setLong(1, ids.length);
+            reset.executeUpdate();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            perRow.close();
+            setBased.close();
+            reset.close();
+        }
+    }
+
+    // Previous markAsSynced(long[]): one UPDATE per row inside a single transaction
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int syncPerRow(SyncState sync) throws SQLException {
+        int updated = 0;
+        conn.setAutoCommit(false);
+        for (long id : sync.ids) {
+            sync.perRow.setLong(1, id);
+            updated += sync.perRow.executeUpdate();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        return updated;
+    }
+
+    // Current markAsSynced(long[]): IN lists of MAX_BIND_ARGS ids, short tail padded
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int syncSetBased(SyncState sync) throws SQLException {
+        long[] ids = sync.ids;
+        int updated = 0;
+        conn.setAutoCommit(false);
+        for (int start = 0; start < ids.length; start += MAX_BIND_ARGS) {
+            int end = Math.min(start + MAX_BIND_ARGS, ids.length);
+            for (int i = 0; i < MAX_BIND_ARGS; i++) {
+                sync.setBased.setLong(i + 1, ids[Math.min(start + i, end - 1)]);
+            }
+            updated += sync.setBased.executeUpdate();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        return updated;
+    }
+
+    // Row plus its compressed body, as insertTransactions writes them. Each row gets a
+    // distinct reference, so the fingerprint probe never hits.
+    private int insertRow(int i, long epochMillis) throws SQLException {
+        Transaction t = new Transaction();
+        t.setAmountPaise((10 + (i % 5000)) * 100L);
+        t.setType((i & 3) == 0 ? "credit" : "debit");
+        t.setReference(String.valueOf(600000000000L + i));
+        t.setTransactionDate("06/01/26");
+        t.setRawSms(messages[i % messages.length]);
+
+        insert.setLong(1, t.getAmountPaise());
+        insert.setString(2, t.getType());
+        insert.setString(3, "MERCHANT " + (i % 200));
+        insert.setString(4, (i & 1) == 0 ? "Food" : "Shopping");
+        insert.setString(5, t.getReference());
+        insert.setString(6, t.getTransactionDate());
+        insert.setLong(7, epochMillis);
+        insert.setString(8, TransactionFingerprint.of(t));
+        insert.setInt(9, 0);
+        if (insert.executeUpdate() == 0) return 0;
+
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            keys.next();
+            insertBody.setLong(1, keys.getLong(1));
+        }
+        insertBody.setBytes(2, SmsBodyCodec.encode(t.getRawSms()));
+        insertBody.executeUpdate();
+        return 1;
+    }
+
+    private static String dayString(int daysBack) {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_YEAR, -daysBack);
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(cal.getTime());
+    }
+}
@@ -0,0 +1,58 @@
+package com.smsfinance.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class CategorizerBenchmark {
+    private static final int MESSAGES_PER_INVOCATION = 64;
+
+    private static final String[] MERCHANTS = {
+        "DAKSHIN CAFE", "SWIGGY", "UBER INDIA SYSTEMS", "AMAZON PAY INDIA", "HP PETROL PUMP",
+        "BESCOM ELECTRICITY", "NETFLIX COM", "JOHN DOE", "Unknown"
+    };
+
+    @Param({"all", "long"})
+    public String section;
+
+    private String[] messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        messages = Corpus.messages(section);
+    }
+
+    // Full keyword scan: what an unseen merchant costs
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void categorize(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(Categorizer.categorize(MERCHANTS[i % MERCHANTS.length], messages[i % messages.length]));
+        }
+    }
+
+    // The HashMap/contains scan the automaton replaced, on the same inputs
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void categorizeLegacy(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(LegacyCategorizer.categorize(MERCHANTS[i % MERCHANTS.length], messages[i % messages.length]));
+        }
+    }
+
+    // Parse-path lookup for recurring merchants (memory-only cache)
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void cachedCategorize(Blackhole bh) {
+        MerchantCategoryCache cache = MerchantCategoryCache.getInstance();
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(cache.categorize(MERCHANTS[i % MERCHANTS.length], messages[i % messages.length]));
+        }
+    }
+}
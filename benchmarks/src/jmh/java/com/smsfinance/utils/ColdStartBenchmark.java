@@ -0,0 +1,34 @@
+package com.smsfinance.utils;
+
+import com.smsfinance.database.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The first SMS in a fresh JVM: class initialization of the registry, parser and categorizer
+// plus one parse, i.e. what a receiver cold start pays before its first insert. Every fork
+// measures a single call, so run it from the JMH jar, where these annotations aren't
+// overridden by the jmh block in build.gradle:
+//   ./gradlew :benchmarks:jmhJar && java -jar benchmarks/build/libs/benchmarks-jmh.jar ColdStart
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+    private static final String SENDER = "VM-HDFCBK";
+    private static final String FIRST_SMS = "Sent Rs.140.00 From HDFC Bank A/C *3483 To DAKSHIN CAFE On 06/01/26 "
+            + "Ref 696932272808 Not You? Call 18002586161/SMS BLOCK UPI to 7308080808";
+
+    @Benchmark
+    public Transaction firstMessage() {
+        return SmsParser.parse(SENDER, FIRST_SMS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.smsfinance.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Loads hdfc_sms_corpus.txt: messages grouped under [section] headers
+public final class Corpus {
+    public static final String RESOURCE = "/hdfc_sms_corpus.txt";
+    public static final String ALL = "all";
+    public static final String SENDERS = "senders";
+
+    private static Map<String, List<String>> sections;
+
+    private Corpus() {}
+
+    // Messages for one section, or every message section for "all"
+    public static synchronized String[] messages(String section) {
+        Map<String, List<String>> all = load();
+        if (!ALL.equals(section)) {
+            List<String> lines = all.get(section);
+            if (lines == null) throw new IllegalArgumentException("No corpus section: " + section);
+            return lines.toArray(new String[0]);
+        }
+        List<String> messages = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : all.entrySet()) {
+            if (!SENDERS.equals(entry.getKey())) {
+                messages.addAll(entry.getValue());
+            }
+        }
+        return messages.toArray(new String[0]);
+    }
+
+    // The HDFC profile, which the corpus messages are written for
+    public static BankProfile hdfc() {
+        return BankRegistry.getInstance().lookup("VM-HDFCBK");
+    }
+
+    private static Map<String, List<String>> load() {
+        if (sections != null) return sections;
+
+        Map<String, List<String>> loaded = new LinkedHashMap<>();
+        List<String> current = null;
+        try (InputStream in = Corpus.class.getResourceAsStream(RESOURCE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    current = new ArrayList<>();
+                    loaded.put(line.substring(1, line.length() - 1), current);
+                } else if (current != null) {
+                    current.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sections = loaded;
+        return sections;
+    }
+}
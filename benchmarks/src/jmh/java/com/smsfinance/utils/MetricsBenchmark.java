@@ -0,0 +1,66 @@
+package com.smsfinance.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+// What instrumentation adds to the hot path, with metrics off (release) and on (debug)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private static final int MESSAGES_PER_INVOCATION = 64;
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private BankProfile bank;
+    private String[] messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = Corpus.hdfc();
+        messages = Corpus.messages("all");
+        Metrics.setEnabled(enabled);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    // One timed section: start() plus recordSince()
+    @Benchmark
+    public long timedSection() {
+        long start = Metrics.start();
+        Metrics.PARSE.recordSince(start);
+        return start;
+    }
+
+    // Recording from several threads at once, as the parse pool does during backfill
+    @Benchmark
+    @Threads(4)
+    public void timedSectionContended() {
+        Metrics.PARSE.recordSince(Metrics.start());
+    }
+
+    @Benchmark
+    public void counter() {
+        Metrics.UNPARSED.increment();
+    }
+
+    // Instrumented parse; compare with SmsParserBenchmark.parse on the "all" section
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(SmsParser.parse(bank, messages[i % messages.length]));
+        }
+    }
+}
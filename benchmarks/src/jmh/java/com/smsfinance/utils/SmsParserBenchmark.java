@@ -0,0 +1,74 @@
+package com.smsfinance.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class SmsParserBenchmark {
+    // Each invocation walks the whole section; scores are per message
+    private static final int MESSAGES_PER_INVOCATION = 64;
+
+    @Param({"all", "upi_sent", "upi_received", "debit", "credit", "atm", "promo", "long"})
+    public String section;
+
+    private BankProfile bank;
+    private BankRegistry registry;
+    private String[] messages;
+    private String[] senders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = Corpus.hdfc();
+        registry = BankRegistry.getInstance();
+        messages = Corpus.messages(section);
+        senders = Corpus.messages(Corpus.SENDERS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(SmsParser.parse(bank, messages[i % messages.length]));
+        }
+    }
+
+    // The regex chain parse replaced, on the same messages
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void parseLegacy(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(LegacySmsParser.parse(messages[i % messages.length]));
+        }
+    }
+
+    // Sender-ID lookup over bank and non-bank senders; should not allocate (see gc.alloc.rate.norm)
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void lookupSender(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(registry.lookup(senders[i % senders.length]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void extractMerchantFromBody(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(SmsParser.extractMerchantFromBody(messages[i % messages.length]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void cleanMerchant(Blackhole bh) {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bh.consume(SmsParser.cleanMerchant("  SRI LAKSHMI  TIFFIN (OPP. BUS STAND) #" + (i & 7) + " "));
+        }
+    }
+}
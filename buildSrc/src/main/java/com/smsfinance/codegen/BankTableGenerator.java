@@ -0,0 +1,169 @@
+package com.smsfinance.codegen;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Turns banks.json into BankTables.java: the bank profiles as constructor calls, so the app
+ * neither reads nor parses JSON at startup. Every pattern is compiled here once to validate it
+ * and its capture groups; at runtime each is compiled only when a message first needs it.
+ */
+final class BankTableGenerator {
+    // Anchors are tracked as bits of an int
+    private static final int MAX_ANCHORS_PER_BANK = 32;
+
+    private BankTableGenerator() {}
+
+    static void generate(JSONObject spec, String packageName, Path outputFile) throws IOException {
+        JSONArray banks = spec.getJSONArray("banks");
+        if (banks.isEmpty()) {
+            throw new IllegalArgumentException("No banks defined");
+        }
+
+        JavaSource source = new JavaSource()
+                .line("package " + packageName + ";")
+                .line()
+                .line("import java.util.regex.Pattern;")
+                .line()
+                .line("// Generated by GenerateParserTablesTask from banks.json; do not edit.")
+                .line("final class BankTables {")
+                .line("    private BankTables() {}")
+                .line()
+                .line("    static BankProfile[] banks() {")
+                .line("        return new BankProfile[]{");
+
+        Set<String> allSenders = new HashSet<>();
+        for (int b = 0; b < banks.length(); b++) {
+            JSONObject bank = banks.getJSONObject(b);
+            String id = bank.getString("id");
+
+            List<String> senders = new ArrayList<>();
+            JSONArray headers = bank.getJSONArray("senders");
+            for (int i = 0; i < headers.length(); i++) {
+                String header = headers.getString(i).toUpperCase(Locale.ROOT);
+                if (!header.matches("[A-Z0-9]+")) {
+                    throw new IllegalArgumentException(id + ": sender header must be letters and digits: " + header);
+                }
+                if (!allSenders.add(header)) {
+                    throw new IllegalArgumentException(id + ": sender header registered twice: " + header);
+                }
+                senders.add(header);
+            }
+
+            List<String> anchors = new ArrayList<>();
+            List<String> templates = new ArrayList<>();
+            JSONArray specs = bank.getJSONArray("templates");
+            for (int i = 0; i < specs.length(); i++) {
+                templates.add(template(id, specs.getJSONObject(i), anchors));
+            }
+
+            source.line("                new BankProfile(" + JavaSource.literal(id) + ", "
+                            + JavaSource.literal(bank.getString("name")) + ",")
+                    .line("                        new String[]{" + literals(senders) + "},")
+                    .line("                        new String[]{" + literals(anchors) + "},")
+                    .line("                        new BankProfile.Template[]{");
+            for (String template : templates) {
+                source.line("                                " + template + ",");
+            }
+            source.line("                        }),");
+        }
+
+        source.line("        };")
+                .line("    }")
+                .line("}")
+                .writeTo(outputFile);
+    }
+
+    // The Template constructor call for one template; registers its anchor in anchors
+    private static String template(String bankId, JSONObject spec, List<String> anchors) {
+        String name = bankId + "/" + spec.getString("name");
+
+        String anchor = spec.getString("anchor").toLowerCase(Locale.ROOT);
+        if (anchor.isEmpty() || anchor.charAt(0) >= 128) {
+            throw new IllegalArgumentException(name + ": anchor must start with an ASCII character: " + anchor);
+        }
+        int anchorIndex = anchors.indexOf(anchor);
+        if (anchorIndex < 0) {
+            if (anchors.size() == MAX_ANCHORS_PER_BANK) {
+                throw new IllegalArgumentException(bankId + ": more than " + MAX_ANCHORS_PER_BANK + " anchors");
+            }
+            anchorIndex = anchors.size();
+            anchors.add(anchor);
+        }
+
+        String type = spec.getString("type");
+        if (!"debit".equals(type) && !"credit".equals(type)) {
+            throw new IllegalArgumentException(name + ": type must be debit or credit: " + type);
+        }
+
+        int flags = 0;
+        List<String> flagNames = new ArrayList<>();
+        JSONArray flagSpecs = spec.optJSONArray("flags");
+        for (int i = 0; flagSpecs != null && i < flagSpecs.length(); i++) {
+            String flag = flagSpecs.getString(i);
+            if ("CASE_INSENSITIVE".equals(flag)) {
+                flags |= Pattern.CASE_INSENSITIVE;
+            } else if ("DOTALL".equals(flag)) {
+                flags |= Pattern.DOTALL;
+            } else {
+                throw new IllegalArgumentException(name + ": unknown pattern flag " + flag);
+            }
+            flagNames.add("Pattern." + flag);
+        }
+
+        String regex = spec.getString("pattern");
+        int groupCount;
+        try {
+            groupCount = Pattern.compile(regex, flags).matcher("").groupCount();
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException(name + ": invalid pattern: " + e.getMessage(), e);
+        }
+
+        JSONObject groups = spec.getJSONObject("groups");
+        int amountGroup = group(name, groups, "amount", groupCount, true);
+        int merchantGroup = group(name, groups, "merchant", groupCount, false);
+        int dateGroup = group(name, groups, "date", groupCount, false);
+        int referenceGroup = group(name, groups, "reference", groupCount, false);
+
+        return "new BankProfile.Template(" + JavaSource.literal(spec.getString("name")) + ", "
+                + JavaSource.literal(regex) + ", "
+                + (flagNames.isEmpty() ? "0" : String.join(" | ", flagNames)) + ", "
+                + "1 << " + anchorIndex + ", "
+                + JavaSource.literal(type) + ", "
+                + amountGroup + ", " + merchantGroup + ", " + dateGroup + ", " + referenceGroup + ", "
+                + JavaSource.literal(spec.optString("merchant", null)) + ", "
+                + JavaSource.literal(spec.optString("category", null)) + ")";
+    }
+
+    private static int group(String name, JSONObject groups, String field, int groupCount, boolean required) {
+        if (!groups.has(field)) {
+            if (required) throw new IllegalArgumentException(name + ": no " + field + " group");
+            return 0;
+        }
+        int group = groups.getInt(field);
+        if (group < 1 || group > groupCount) {
+            throw new IllegalArgumentException(name + ": " + field + " group " + group
+                    + " out of range, pattern has " + groupCount);
+        }
+        return group;
+    }
+
+    private static String literals(List<String> values) {
+        StringBuilder out = new StringBuilder();
+        for (String value : values) {
+            if (out.length() > 0) out.append(", ");
+            out.append(JavaSource.literal(value));
+        }
+        return out.toString();
+    }
+}
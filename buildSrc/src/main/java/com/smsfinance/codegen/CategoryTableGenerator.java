@@ -0,0 +1,184 @@
+package com.smsfinance.codegen;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds the Categorizer's keyword automaton from categories.json and writes it out as
+ * CategoryTables.java: Aho-Corasick with the failure links folded into a dense transition
+ * table over a compact alphabet, plus per-keyword category, length, score and whole-word flag.
+ */
+final class CategoryTableGenerator {
+    // Keywords this short only count as whole words, so "hp" doesn't match inside "shop"
+    private static final int WHOLE_WORD_MAX_LENGTH = 3;
+    // Longer keywords are more specific and score higher
+    private static final int SPECIFIC_MIN_LENGTH = 6;
+
+    private CategoryTableGenerator() {}
+
+    static void generate(JSONObject spec, String packageName, Path outputFile) throws IOException {
+        JSONArray categories = spec.getJSONArray("categories");
+        String[] categoryNames = new String[categories.length()];
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordCategories = new ArrayList<>();
+        Set<String> seenCategories = new HashSet<>();
+        for (int c = 0; c < categories.length(); c++) {
+            JSONObject category = categories.getJSONObject(c);
+            categoryNames[c] = category.getString("name");
+            if (!seenCategories.add(categoryNames[c])) {
+                throw new IllegalArgumentException("Duplicate category " + categoryNames[c]);
+            }
+            JSONArray words = category.getJSONArray("keywords");
+            for (int k = 0; k < words.length(); k++) {
+                String keyword = words.getString(k).toLowerCase(Locale.ROOT);
+                for (int i = 0; i < keyword.length(); i++) {
+                    if (keyword.charAt(i) >= 128) {
+                        throw new IllegalArgumentException(categoryNames[c] + ": keyword must be ASCII: " + keyword);
+                    }
+                }
+                if (keyword.isEmpty()) {
+                    throw new IllegalArgumentException(categoryNames[c] + ": empty keyword");
+                }
+                keywords.add(keyword);
+                keywordCategories.add(c);
+            }
+        }
+
+        int keywordCount = keywords.size();
+        int[] keywordCategory = new int[keywordCount];
+        int[] keywordLength = new int[keywordCount];
+        int[] keywordScore = new int[keywordCount];
+        int[] keywordWholeWord = new int[keywordCount];
+
+        // ASCII char -> alphabet symbol; 0 is every char that isn't in any keyword
+        int[] symbols = new int[128];
+        int alphabetSize = 1;
+        int totalChars = 0;
+        for (int k = 0; k < keywordCount; k++) {
+            String keyword = keywords.get(k);
+            keywordCategory[k] = keywordCategories.get(k);
+            keywordLength[k] = keyword.length();
+            keywordScore[k] = keyword.length() >= SPECIFIC_MIN_LENGTH ? 2 : 1;
+            keywordWholeWord[k] = keyword.length() <= WHOLE_WORD_MAX_LENGTH ? 1 : 0;
+            totalChars += keyword.length();
+            for (int i = 0; i < keyword.length(); i++) {
+                char ch = keyword.charAt(i);
+                if (symbols[ch] == 0) {
+                    symbols[ch] = alphabetSize++;
+                }
+            }
+        }
+
+        // Trie over the keywords
+        int[] transitions = new int[(totalChars + 1) * alphabetSize];
+        Arrays.fill(transitions, -1);
+        List<List<Integer>> outputs = new ArrayList<>();
+        outputs.add(new ArrayList<>());
+        int stateCount = 1;
+        for (int k = 0; k < keywordCount; k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int slot = state * alphabetSize + symbols[keyword.charAt(i)];
+                if (transitions[slot] < 0) {
+                    transitions[slot] = stateCount++;
+                    outputs.add(new ArrayList<>());
+                }
+                state = transitions[slot];
+            }
+            outputs.get(state).add(k);
+        }
+
+        // Breadth-first pass: failure links folded into a complete transition table
+        int[] fail = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int a = 0; a < alphabetSize; a++) {
+            int next = transitions[a];
+            if (next < 0) {
+                transitions[a] = 0;
+            } else {
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            outputs.get(state).addAll(outputs.get(fail[state]));
+            for (int a = 0; a < alphabetSize; a++) {
+                int slot = state * alphabetSize + a;
+                int next = transitions[slot];
+                int fallback = transitions[fail[state] * alphabetSize + a];
+                if (next < 0) {
+                    transitions[slot] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        transitions = Arrays.copyOf(transitions, stateCount * alphabetSize);
+
+        int[] outputStart = new int[stateCount + 1];
+        int outputCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            outputStart[state] = outputCount;
+            outputCount += outputs.get(state).size();
+        }
+        outputStart[stateCount] = outputCount;
+        int[] outputKeywords = new int[outputCount];
+        for (int state = 0; state < stateCount; state++) {
+            int pos = outputStart[state];
+            for (int k : outputs.get(state)) {
+                outputKeywords[pos++] = k;
+            }
+        }
+
+        StringBuilder names = new StringBuilder();
+        for (String name : categoryNames) {
+            if (names.length() > 0) names.append(", ");
+            names.append(JavaSource.literal(name));
+        }
+
+        new JavaSource()
+                .line("package " + packageName + ";")
+                .line()
+                .line("// Generated by GenerateParserTablesTask from categories.json; do not edit.")
+                .line("// " + keywordCount + " keywords, " + stateCount + " states, " + alphabetSize + " symbols")
+                .line("final class CategoryTables {")
+                .line("    // Tie-break order: first declared wins")
+                .line("    static final String[] CATEGORY_NAMES = {" + names + "};")
+                .line("    static final int KEYWORD_COUNT = " + keywordCount + ";")
+                .line("    static final int ALPHABET_SIZE = " + alphabetSize + ";")
+                .line()
+                .line("    // keyword id -> category index, length, score and whole-word flag (1 = whole words only)")
+                .line("    static final char[] KEYWORD_CATEGORY = " + JavaSource.charTable(keywordCategory) + ";")
+                .line("    static final char[] KEYWORD_LENGTH = " + JavaSource.charTable(keywordLength) + ";")
+                .line("    static final char[] KEYWORD_SCORE = " + JavaSource.charTable(keywordScore) + ";")
+                .line("    static final char[] KEYWORD_WHOLE_WORD = " + JavaSource.charTable(keywordWholeWord) + ";")
+                .line("    // ASCII char -> alphabet symbol, 0 = not in any keyword")
+                .line("    static final char[] SYMBOLS = " + JavaSource.charTable(symbols) + ";")
+                .line("    // state * ALPHABET_SIZE + symbol -> next state")
+                .line("    static final char[] TRANSITIONS = " + JavaSource.charTable(transitions) + ";")
+                .line("    // state -> range in OUTPUT_KEYWORDS of the keywords ending there")
+                .line("    static final char[] OUTPUT_START = " + JavaSource.charTable(outputStart) + ";")
+                .line("    static final char[] OUTPUT_KEYWORDS = " + JavaSource.charTable(outputKeywords) + ";")
+                .line()
+                .line("    private CategoryTables() {}")
+                .line()
+                .line("    private static char[] chars(String... chunks) {")
+                .line("        return String.join(\"\", chunks).toCharArray();")
+                .line("    }")
+                .line("}")
+                .writeTo(outputFile);
+    }
+}
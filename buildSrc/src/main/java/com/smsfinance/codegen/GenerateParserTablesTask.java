@@ -0,0 +1,73 @@
+package com.smsfinance.codegen;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates CategoryTables.java and BankTables.java from the JSON tables in src/main/tables,
+ * so a cold start doesn't build the keyword automaton or parse bank templates before the
+ * first SMS can be handled. Bad input fails the build instead of the first parse.
+ */
+public abstract class GenerateParserTablesTask extends DefaultTask {
+    private static final String PACKAGE = "com.smsfinance.utils";
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getCategories();
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getBanks();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @TaskAction
+    public void generate() throws IOException {
+        File outputDir = getOutputDir().get().getAsFile();
+        deleteRecursively(outputDir);
+        Path packageDir = outputDir.toPath().resolve(PACKAGE.replace('.', '/'));
+
+        File categories = getCategories().get().getAsFile();
+        File banks = getBanks().get().getAsFile();
+        try {
+            CategoryTableGenerator.generate(read(categories), PACKAGE, packageDir.resolve("CategoryTables.java"));
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new GradleException(categories.getName() + ": " + e.getMessage(), e);
+        }
+        try {
+            BankTableGenerator.generate(read(banks), PACKAGE, packageDir.resolve("BankTables.java"));
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new GradleException(banks.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static JSONObject read(File file) throws IOException {
+        return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+}
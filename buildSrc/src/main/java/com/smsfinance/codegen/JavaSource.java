@@ -0,0 +1,78 @@
+package com.smsfinance.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Small helpers for writing generated Java: string literals, and flat char tables encoded as
+ * string constants so the generated class loads them with a copy instead of running a
+ * static initializer element by element.
+ */
+final class JavaSource {
+    // Chars per string constant; worst case 3 bytes each stays under the 65535-byte class file limit
+    private static final int CHUNK_CHARS = 16_000;
+
+    private final StringBuilder out = new StringBuilder(1 << 16);
+
+    JavaSource line(String text) {
+        out.append(text).append('\n');
+        return this;
+    }
+
+    JavaSource line() {
+        out.append('\n');
+        return this;
+    }
+
+    void writeTo(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(out.toString());
+        }
+    }
+
+    // A Java string literal for any text, ASCII-only so the output doesn't depend on encodings
+    static String literal(String text) {
+        if (text == null) return "null";
+        StringBuilder literal = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            appendChar(literal, text.charAt(i));
+        }
+        return literal.append('"').toString();
+    }
+
+    // chars(...) call holding the table, split into constants that each fit in a class file
+    static String charTable(int[] values) {
+        StringBuilder call = new StringBuilder("chars(");
+        for (int start = 0; start < values.length || start == 0; start += CHUNK_CHARS) {
+            if (start > 0) call.append(",\n            ");
+            call.append('"');
+            for (int i = start; i < Math.min(values.length, start + CHUNK_CHARS); i++) {
+                if (values[i] < 0 || values[i] > Character.MAX_VALUE) {
+                    throw new IllegalArgumentException("Table value doesn't fit in a char: " + values[i]);
+                }
+                appendChar(call, (char) values[i]);
+            }
+            call.append('"');
+        }
+        return call.append(')').toString();
+    }
+
+    private static void appendChar(StringBuilder literal, char c) {
+        if (c == '"' || c == '\\') {
+            literal.append('\\').append(c);
+        } else if (c >= 0x20 && c < 0x7f) {
+            literal.append(c);
+        } else if (c < 0x100) {
+            // Octal rather than a unicode escape: those are decoded before lexing, so a line feed
+            // written that way would end the literal
+            literal.append('\\').append((char) ('0' + (c >> 6))).append((char) ('0' + ((c >> 3) & 7)))
+                    .append((char) ('0' + (c & 7)));
+        } else {
+            literal.append(String.format("\\u%04x", (int) c));
+        }
+    }
+}